@@ -0,0 +1,109 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * A small self-contained benchmark harness, so the solutions can be measured without pulling a benchmarking
+ * framework into the project. Each benchmark runs a number of time-boxed warmup iterations, then time-boxed
+ * measurement iterations, and reports:
+ * <ul>
+ *     <li>throughput in ops/s over every measured op</li>
+ *     <li>latency per op - mean, p50, p99 and max</li>
+ *     <li>allocation in bytes/op and MB/s, summed over every live thread so parallel streams are counted too</li>
+ * </ul>
+ * Results of every op are folded into a volatile sink so the JIT cannot drop the work
+ */
+public class Bench {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @SuppressWarnings("unused")
+    private static volatile int sink;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final long iterationNanos;
+
+    Bench(final int warmupIterations, final int measureIterations, final long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    static void printHeader() {
+        System.out.printf("%-32s %6s %12s %12s %12s %12s %12s %14s %10s%n",
+                "Benchmark", "Scale", "ops/s", "mean ms/op", "p50 ms/op", "p99 ms/op", "max ms/op", "B/op", "MB/s");
+    }
+
+    /**
+     * Run and report a single benchmark
+     */
+    void run(final String name, final int scale, final Supplier<?> op) {
+        for (int i = 0; i < this.warmupIterations; i++) {
+            iteration(op, new long[16]);
+        }
+
+        long[] latencies = new long[1024];
+        int ops = 0;
+        long elapsed = 0;
+        long allocated = 0;
+        for (int i = 0; i < this.measureIterations; i++) {
+            final long allocatedBefore = totalAllocatedBytes();
+            final long start = System.nanoTime();
+            final long[] iteration = iteration(op, new long[16]);
+            elapsed += System.nanoTime() - start;
+            allocated += totalAllocatedBytes() - allocatedBefore;
+
+            final int iterationOps = (int) iteration[0];
+            if (ops + iterationOps > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, ops + iterationOps));
+            }
+            System.arraycopy(iteration, 1, latencies, ops, iterationOps);
+            ops += iterationOps;
+        }
+
+        final long[] sorted = Arrays.copyOf(latencies, ops);
+        Arrays.sort(sorted);
+        System.out.printf("%-32s %6d %12.3f %12.3f %12.3f %12.3f %12.3f %14.0f %10.1f%n",
+                name,
+                scale,
+                ops / (elapsed / 1e9),
+                elapsed / 1e6 / ops,
+                sorted[ops / 2] / 1e6,
+                sorted[Math.min(ops - 1, (int) Math.ceil(ops * 0.99) - 1)] / 1e6,
+                sorted[ops - 1] / 1e6,
+                (double) allocated / ops,
+                allocated / 1e6 / (elapsed / 1e9));
+    }
+
+    // Run ops until the iteration time is used up - the first slot holds the op count, the rest each op's latency
+    private long[] iteration(final Supplier<?> op, final long[] initial) {
+        long[] latencies = initial;
+        int ops = 0;
+        final long deadline = System.nanoTime() + this.iterationNanos;
+        long now;
+        do {
+            final long start = System.nanoTime();
+            final Object result = op.get();
+            now = System.nanoTime();
+            sink ^= System.identityHashCode(result);
+            if (ops + 1 >= latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[++ops] = now - start;
+        } while (now < deadline);
+        latencies[0] = ops;
+        return latencies;
+    }
+
+    private static long totalAllocatedBytes() {
+        long total = 0;
+        for (final long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,75 @@
+import util.InputUtil;
+import util.MappedInput;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Real puzzle inputs, and synthetic inputs made by scaling the real ones up so that their shape stays realistic
+ */
+class BenchInputs {
+
+    private static final Pattern HEADER_ID = Pattern.compile("^(\\w+\\s+)(\\d+)(:.*)$");
+
+    private BenchInputs() {
+    }
+
+    /**
+     * @return the real input repeated {@code scale} times, line by line
+     */
+    static List<String> lines(final String day, final int scale) {
+        final List<String> lines = InputUtil.lines(day);
+        final List<String> scaled = new ArrayList<>(lines.size() * scale);
+        for (int i = 0; i < scale; i++) {
+            scaled.addAll(lines);
+        }
+        return scaled;
+    }
+
+    /**
+     * @return the real input repeated {@code scale} times, line by line, written to a temporary file and mapped
+     */
+    static MappedInput mappedLines(final String day, final int scale) {
+        try {
+            final Path path = Files.createTempFile(day + "-x" + scale, ".txt");
+            path.toFile().deleteOnExit();
+            Files.write(path, lines(day, scale));
+            return MappedInput.of(path);
+        }
+        catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the real input repeated {@code scale} times, with the `{Header} {id}:` prefix of every line
+     * renumbered so ids stay unique and consecutive
+     */
+    static List<String> renumberedLines(final String day, final int scale) {
+        final List<String> scaled = lines(day, scale);
+        final List<String> renumbered = new ArrayList<>(scaled.size());
+        for (int i = 0; i < scaled.size(); i++) {
+            final Matcher matcher = HEADER_ID.matcher(scaled.get(i));
+            if (!matcher.matches()) {
+                throw new IllegalStateException(scaled.get(i));
+            }
+            renumbered.add(matcher.group(1) + (i + 1) + matcher.group(3));
+        }
+        return renumbered;
+    }
+
+    /**
+     * @return the real almanac with its seed list repeated {@code scale} times
+     */
+    static String almanac(final int scale) {
+        final String input = InputUtil.file("day05");
+        final int seedsEnd = input.indexOf('\n');
+        final String seeds = input.substring("seeds:".length(), seedsEnd);
+        return "seeds:" + seeds.repeat(scale) + input.substring(seedsEnd);
+    }
+}
@@ -0,0 +1,209 @@
+import grid.CharGrid;
+import grid.ComponentLabeller;
+import grid.Point;
+import grid.TwoDimIntGrid;
+import grid.TwoDimIntPoint;
+import util.InputUtil;
+import util.MappedInput;
+import util.Pair;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks for the parse and part stages of every Day, and for the hot operations of the grid package.
+ * <p>
+ * Usage: {@code Benchmarks [name regex] [scale,scale,...]}, run from the project root so {@code inputs/} resolves.
+ * Line-oriented inputs are benchmarked at each scale, where scale 1 is the real input and larger scales repeat it.
+ * Inputs that cannot be scaled without changing the puzzle only run at scale 1:
+ * <ul>
+ *     <li>Day06 - part 2 concatenates every race, which overflows a long once races are repeated</li>
+ *     <li>Day08 - repeating the network adds nothing</li>
+ * </ul>
+ * Day05 part2_1 brute forces every seed and takes minutes per op, so it is not included
+ */
+public class Benchmarks {
+
+    private static final int[] DEFAULT_SCALES = {1, 10, 100, 1000};
+
+    // Cell-per-cell grids get large quickly, so their scale is capped
+    private static final int MAX_GRID_SCALE = 100;
+
+    private final Bench bench = new Bench(3, 5, 1000);
+    private final Pattern filter;
+
+    private Benchmarks(final Pattern filter) {
+        this.filter = filter;
+    }
+
+    public static void main(final String[] args) {
+        final Pattern filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        final int[] scales = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_SCALES;
+
+        final Benchmarks benchmarks = new Benchmarks(filter);
+        Bench.printHeader();
+        for (final int scale : scales) {
+            benchmarks.days(scale);
+            benchmarks.grid(scale);
+        }
+    }
+
+    private void days(final int scale) {
+        final List<String> day01 = BenchInputs.lines("day01", scale);
+        run("Day01.part1", scale, () -> Day01.part1(day01));
+        run("Day01.part2", scale, () -> Day01.part2(day01));
+        final MappedInput day01Mapped = BenchInputs.mappedLines("day01", scale);
+        run("Day01.part1Mapped", scale, () -> Day01.part1(day01Mapped));
+        run("Day01.part2Mapped", scale, () -> Day01.part2(day01Mapped));
+        run("Day01.bothPartsMapped", scale, () -> Day01.bothParts(day01Mapped));
+
+        final List<String> day02Lines = BenchInputs.renumberedLines("day02", scale);
+        final var day02 = Day02.parse(day02Lines);
+        run("Day02.parse", scale, () -> Day02.parse(day02Lines));
+        run("Day02.part1", scale, () -> Day02.part1(day02));
+        run("Day02.part2", scale, () -> Day02.part2(day02));
+        // every bag of up to 20 of each colour
+        final List<Day02.Bag> bags = IntStream.range(0, 21 * 21 * 21)
+                .mapToObj(i -> new Day02.Bag(i / (21 * 21), i / 21 % 21, i % 21))
+                .toList();
+        final var bagIndex = Day02.BagIndex.of(day02);
+        run("Day02.bagIndex.build", scale, () -> Day02.BagIndex.of(day02));
+        run("Day02.bagIndex.query", scale, () -> bagIndex.possibleIdSums(bags));
+
+        if (scale <= MAX_GRID_SCALE) {
+            final List<String> day03Lines = BenchInputs.lines("day03", scale);
+            final var day03 = Day03.parse(day03Lines);
+            run("Day03.parse", scale, () -> Day03.parse(day03Lines));
+            run("Day03.part1", scale, () -> Day03.part1(day03.grid(), day03.partNumbers()));
+            run("Day03.part2", scale, () -> Day03.part2(day03.grid(), day03.charPoints(), day03.partNumbers()));
+        }
+
+        final List<String> day04Lines = BenchInputs.renumberedLines("day04", scale);
+        final var day04 = Day04.parse(day04Lines);
+        run("Day04.parse", scale, () -> Day04.parse(day04Lines));
+        run("Day04.part1", scale, () -> Day04.part1(day04));
+        run("Day04.part2", scale, () -> Day04.part2(day04));
+
+        final String day05Input = BenchInputs.almanac(scale);
+        final var day05 = Day05.parseInput(day05Input);
+        run("Day05.parse", scale, () -> Day05.parseInput(day05Input));
+        run("Day05.part1", scale, () -> Day05.part1(day05.right(), day05.left()));
+        run("Day05.part2_2", scale, () -> Day05.part2_2(day05.right(), day05.left()));
+        run("Day05.part2_3", scale, () -> Day05.part2_3(day05.right(), day05.left()));
+
+        if (scale == 1) {
+            final String day06Input = InputUtil.file("day06");
+            final var day06 = Day06.parse(day06Input);
+            run("Day06.parse", scale, () -> Day06.parse(day06Input));
+            run("Day06.part1", scale, () -> Day06.part1(day06));
+            run("Day06.part2", scale, () -> Day06.part2(day06));
+        }
+
+        final List<String> day07Lines = BenchInputs.lines("day07", scale);
+        final var day07 = Day07.parse(day07Lines);
+        run("Day07.parse", scale, () -> Day07.parse(day07Lines));
+        run("Day07.part1", scale, () -> Day07.part1(day07));
+        run("Day07.part2", scale, () -> Day07.part2(day07));
+
+        if (scale == 1) {
+            final String day08Input = InputUtil.file("day08");
+            final var day08 = Day08.parse(day08Input);
+            run("Day08.parse", scale, () -> Day08.parse(day08Input));
+            final var graph = Day08.Graph.compile(day08.nodeMap(), day08.path());
+            run("Day08.compile", scale, () -> Day08.Graph.compile(day08.nodeMap(), day08.path()));
+            run("Day08.part1", scale, () -> Day08.part1(graph));
+            run("Day08.part2", scale, () -> Day08.part2(graph));
+            run("Day08.part2Simulated", scale, () -> Day08.part2Simulated(graph, 1 << 22));
+
+            final boolean[] ends = graph.mark(key -> key.endsWith("Z"));
+            final int[] starts = graph.ids(key -> key.endsWith("A"));
+            final var jumps = Day08.PassJumps.build(graph, ends);
+            run("Day08.passJumps.build", scale, () -> Day08.PassJumps.build(graph, ends));
+            run("Day08.passJumps.query", scale, () -> jumps.afterPasses(starts, Long.MAX_VALUE >>> 10));
+        }
+    }
+
+    // Square grids of side 100 * scale^(1/2), so the cell count grows linearly with scale
+    private void grid(final int scale) {
+        if (scale > MAX_GRID_SCALE) {
+            return;
+        }
+        final int side = (int) Math.round(100 * Math.sqrt(scale));
+        final List<Pair<TwoDimIntPoint, Integer>> cells = IntStream.range(0, side * side)
+                .mapToObj(i -> new Pair<>(Point.of(i % side, i / side), i % 7))
+                .toList();
+
+        gridBacking("hash", scale, side, cells, TwoDimIntGrid::of, TwoDimIntGrid.pairCollector());
+        gridBacking("dense", scale, side, cells, TwoDimIntGrid::dense, TwoDimIntGrid.densePairCollector());
+        gridBacking("sparse", scale, side, cells, TwoDimIntGrid::sparse, TwoDimIntGrid.sparsePairCollector());
+
+        final TwoDimIntGrid<Integer> dense = cells.stream().collect(TwoDimIntGrid.densePairCollector());
+        run("grid.label.cardinal", scale, () -> ComponentLabeller.label(dense, node -> node < 3,
+                ComponentLabeller.Connectivity.CARDINAL));
+        run("grid.label.orthogonal", scale, () -> ComponentLabeller.label(dense, node -> node < 3,
+                ComponentLabeller.Connectivity.ORTHOGONAL));
+
+        final List<String> schematic = BenchInputs.lines("day03", scale);
+        run("grid.CharGrid.of", scale, () -> CharGrid.of(schematic));
+    }
+
+    private void gridBacking(final String backing,
+                             final int scale,
+                             final int side,
+                             final List<Pair<TwoDimIntPoint, Integer>> cells,
+                             final Supplier<TwoDimIntGrid<Integer>> ctor,
+                             final Collector<Pair<TwoDimIntPoint, Integer>, ?, TwoDimIntGrid<Integer>> collector) {
+        final TwoDimIntGrid<Integer> grid = ctor.get();
+        cells.forEach(cell -> grid.put(cell.left(), cell.right()));
+
+        run("grid.put." + backing, scale, () -> {
+            final TwoDimIntGrid<Integer> fresh = ctor.get();
+            for (int y = 0; y < side; y++) {
+                for (int x = 0; x < side; x++) {
+                    fresh.put(x, y, x);
+                }
+            }
+            return fresh;
+        });
+        run("grid.get." + backing, scale, () -> {
+            long sum = 0;
+            for (int y = 0; y < side; y++) {
+                for (int x = 0; x < side; x++) {
+                    sum += grid.get(x, y);
+                }
+            }
+            return sum;
+        });
+        run("grid.getPoint." + backing, scale, () -> {
+            long sum = 0;
+            for (final Pair<TwoDimIntPoint, Integer> cell : cells) {
+                sum += grid.get(cell.left());
+            }
+            return sum;
+        });
+        run("grid.neighbours." + backing, scale, () -> {
+            int count = 0;
+            for (int y = 0; y < side; y++) {
+                for (int x = 0; x < side; x++) {
+                    if (grid.anyOrthogonalNeighbour(x, y, (nx, ny) -> grid.get(nx, ny) == 0)) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+        run("grid.collect." + backing, scale, () -> cells.stream().collect(collector));
+    }
+
+    private void run(final String name, final int scale, final Supplier<?> op) {
+        if (this.filter.matcher(name).find()) {
+            this.bench.run(name, scale, op);
+        }
+    }
+}
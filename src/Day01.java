@@ -1,70 +1,197 @@
+import util.ByteWords;
 import util.InputUtil;
+import util.MappedInput;
+import util.MultiPatternMatcher;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.UnaryOperator;
-import java.util.regex.MatchResult;
-import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 public class Day01 {
 
-    private static final Map<String, String> LOOKUP = Map.of(
-            "one", "1",
-            "two", "2",
-            "three", "3",
-            "four", "4",
-            "five", "5",
-            "six", "6",
-            "seven", "7",
-            "eight", "8",
-            "nine", "9");
-
-    private static final UnaryOperator<String> GOOD_LOOKUP = str -> LOOKUP.getOrDefault(str, str);
-    private static final String MAP_KEYS = String.join("|", LOOKUP.keySet());
-    private static final Pattern PATTERN_DAY_1 = Pattern.compile("\\d");
-    private static final Pattern PATTERN_DAY_2 = Pattern.compile("\\d|" + MAP_KEYS);
+    private static final Map<String, Integer> LOOKUP = Map.of(
+            "one", 1,
+            "two", 2,
+            "three", 3,
+            "four", 4,
+            "five", 5,
+            "six", 6,
+            "seven", 7,
+            "eight", 8,
+            "nine", 9);
+
+    private static final MultiPatternMatcher DIGITS = MultiPatternMatcher.of(digits());
+    private static final MultiPatternMatcher DIGITS_AND_WORDS = MultiPatternMatcher.of(digitsAndWords());
+
+    // Mapped input is summed in chunks of about this many bytes, in parallel
+    private static final long CHUNK_SIZE = 1L << 26;
 
     private Day01() {
     }
 
     public static void main(final String[] args) {
-        final List<String> input = InputUtil.lines("day01");
-        doPart(input, Day01::easierConcatFirstLastNumber);
-        doPart(input, Day01::harderConcatFirstLastNumber);
-    }
-
-    static void doPart(final List<String> input, final UnaryOperator<String> parser) {
-        final var result = input.stream()
-                .map(parser)
-                .mapToInt(Integer::valueOf)
-                .sum();
-
-        System.out.println(result);
-    }
-
-    private static String easierConcatFirstLastNumber(final String str) {
-        final List<String> nums = PATTERN_DAY_1
-                .matcher(str)
-                .results()
-                .map(MatchResult::group)
-                .toList();
-        return nums.get(0) + nums.get(nums.size()-1);
-    }
-
-    private static String harderConcatFirstLastNumber(final String str) {
-        final int strLen = str.length();
-        final List<String> nums = new ArrayList<>();
-        for (int i = 0; i < strLen; i++) {
-            final String substr = str.substring(i);
-            PATTERN_DAY_2.matcher(substr)
-                    .results()
-                    .map(MatchResult::group)
-                    .findFirst()
-                    .ifPresent(nums::add);
+        final long[] sums = bothParts(InputUtil.mapped("day01"));
+        System.out.println(sums[0]);
+        System.out.println(sums[1]);
+    }
+
+    public static int part1(final List<String> input) {
+        return doPart(input, DIGITS);
+    }
+
+    public static int part2(final List<String> input) {
+        return doPart(input, DIGITS_AND_WORDS);
+    }
+
+    /**
+     * Part 1 straight from the bytes of {@code input}, a word at a time. The input is cut at line breaks into chunks
+     * which are summed in parallel
+     */
+    public static long part1(final MappedInput input) {
+        return sumChunks(input, false)[0];
+    }
+
+    /**
+     * Both parts in one pass over the bytes of {@code input} - the chunks of part 1 are walked as it walks them, and
+     * each line is matched for part 2 as its end is found
+     *
+     * @return the sums of both parts, part 1 first
+     */
+    public static long[] bothParts(final MappedInput input) {
+        return sumChunks(input, true);
+    }
+
+    /**
+     * Part 2 straight from the bytes of {@code input}, a line at a time, without materialising the lines
+     */
+    public static long part2(final MappedInput input) {
+        long sum = 0;
+        for (long lineStart = 0; lineStart < input.size(); ) {
+            final long lineEnd = input.nextLineBreak(lineStart);
+            sum += calibrationValue(input, lineStart, lineEnd, DIGITS_AND_WORDS);
+            lineStart = lineEnd + 1;
+        }
+        return sum;
+    }
+
+    // Sum each chunk in parallel, giving the sums of part 1 and, if words, of part 2
+    private static long[] sumChunks(final MappedInput input, final boolean words) {
+        final int numChunks = (int) Math.max(1, input.size() / CHUNK_SIZE);
+        final long[] chunkStarts = new long[numChunks + 1];
+        for (int i = 1; i < numChunks; i++) {
+            chunkStarts[i] = Math.min(input.size(), input.nextLineBreak(i * CHUNK_SIZE) + 1);
+        }
+        chunkStarts[numChunks] = input.size();
+        return IntStream.range(0, numChunks)
+                .parallel()
+                .mapToObj(i -> sumCalibrationValues(input, chunkStarts[i], chunkStarts[i + 1], words))
+                .reduce(new long[2], (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+    }
+
+    // Sum the first and last digits of the lines from `from` to `to`, which must both be at the start of a line or
+    // the end of the input. Each word is tested for digits and line breaks at once, and the digits in it are then
+    // shared out between the lines it breaks. With words, each line is also matched for digits and digit words as
+    // its end is found, for part 2
+    static long[] sumCalibrationValues(final MappedInput input, final long from, final long to, final boolean words) {
+        long sum = 0;
+        long wordsSum = 0;
+        long lineStart = from;
+        int first = -1;
+        int last = -1;
+        for (long offset = from; offset < to; offset += ByteWords.BYTES) {
+            final long word = input.longAt(offset);
+            final long inChunk = to - offset >= ByteWords.BYTES ? -1L : (1L << ((to - offset) << 3)) - 1;
+            long digits = ByteWords.inRange(word, (byte) '0', (byte) '9') & inChunk;
+            long lineBreaks = ByteWords.equalTo(word, (byte) '\n') & inChunk;
+            while (lineBreaks != 0) {
+                final long lineBreak = lineBreaks & -lineBreaks;
+                final long lineDigits = digits & (lineBreak - 1);
+                if (lineDigits != 0) {
+                    if (first < 0) {
+                        first = digitAt(word, ByteWords.firstByte(lineDigits));
+                    }
+                    last = digitAt(word, ByteWords.lastByte(lineDigits));
+                }
+                final long lineEnd = offset + ByteWords.firstByte(lineBreak);
+                sum += calibrationValue(input, lineStart, lineEnd, first, last);
+                if (words) {
+                    wordsSum += calibrationValue(input, lineStart, lineEnd, DIGITS_AND_WORDS);
+                }
+                lineStart = lineEnd + 1;
+                first = -1;
+                digits &= ~((lineBreak << 1) - 1);
+                lineBreaks &= lineBreaks - 1;
+            }
+            if (digits != 0) {
+                if (first < 0) {
+                    first = digitAt(word, ByteWords.firstByte(digits));
+                }
+                last = digitAt(word, ByteWords.lastByte(digits));
+            }
+        }
+        if (lineStart < to) {
+            sum += calibrationValue(input, lineStart, to, first, last);
+            if (words) {
+                wordsSum += calibrationValue(input, lineStart, to, DIGITS_AND_WORDS);
+            }
+        }
+        return new long[]{sum, wordsSum};
+    }
+
+    static int doPart(final List<String> input, final MultiPatternMatcher matcher) {
+        int result = 0;
+        for (final String line : input) {
+            result += calibrationValue(line, matcher);
+        }
+
+        return result;
+    }
+
+    // The first and last numbers of a line, concatenated. Blank lines, including a lone carriage return, hold no value
+    private static int calibrationValue(final CharSequence line, final MultiPatternMatcher matcher) {
+        final int first = matcher.first(line);
+        if (first != MultiPatternMatcher.NO_MATCH) {
+            return first * 10 + matcher.last(line);
+        }
+        if (line.isEmpty() || (line.length() == 1 && line.charAt(0) == '\r')) {
+            return 0;
+        }
+        throw new IllegalStateException("No numbers in: " + line);
+    }
+
+    private static int calibrationValue(final MappedInput input, final long start, final long end,
+                                        final MultiPatternMatcher matcher) {
+        final int first = matcher.first(input, start, end);
+        return calibrationValue(input, start, end, first, first < 0 ? first : matcher.last(input, start, end));
+    }
+
+    private static int calibrationValue(final MappedInput input, final long start, final long end,
+                                        final int first, final int last) {
+        if (first >= 0) {
+            return first * 10 + last;
+        }
+        if (end == start || (end == start + 1 && input.byteAt(start) == '\r')) {
+            return 0;
+        }
+        throw new IllegalStateException("No numbers in: " + input.view(start, end));
+    }
+
+    private static int digitAt(final long word, final int index) {
+        return ByteWords.byteAt(word, index) - '0';
+    }
+
+    private static Map<String, Integer> digits() {
+        final Map<String, Integer> digits = new HashMap<>();
+        for (int digit = 0; digit <= 9; digit++) {
+            digits.put(String.valueOf(digit), digit);
         }
-        final String first = GOOD_LOOKUP.apply(nums.get(0));
-        final String last = GOOD_LOOKUP.apply(nums.get(nums.size()-1));
-        return first + last;
+        return digits;
+    }
+
+    private static Map<String, Integer> digitsAndWords() {
+        final Map<String, Integer> patterns = digits();
+        patterns.putAll(LOOKUP);
+        return patterns;
     }
 }
@@ -1,114 +1,206 @@
 import util.InputUtil;
-import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
+import util.Tokenizer;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.Arrays;
+import java.util.List;
 
 public class Day02 {
 
-    private static final String RED = "red";
-    private static final String GREEN = "green";
-    private static final String BLUE = "blue";
-
-    private static final Map<String, Integer> STARTING_DRAW_MAP = Map.of(
-            RED, 0,
-            GREEN, 0,
-            BLUE, 0);
+    private static final Bag PART_1_BAG = new Bag(12, 13, 14);
 
     private Day02() {
     }
 
     public static void main(final String[] args) {
-        final Map<Integer, Game> games = InputUtil.lines("day02")
-                .stream()
-                .map(Day02::processGame)
-                .collect(toMap(Game::id, Function.identity()));
+        final Games games = parse(InputUtil.lines("day02"));
 
-        part1(games);
-        part2(games);
+        System.out.println("Valid game sum part 1: " + part1(games));
+        System.out.println("Valid game sum part 2: " + part2(games));
     }
 
-    public static void part1(final Map<Integer, Game> games) {
-        final Map<String, Integer> validBallCriteria = Map.of(
-                RED, 12,
-                GREEN, 13,
-                BLUE, 14);
-
-        final int sum = games
-                .entrySet()
-                .stream()
-                .filter(gameEntry -> gameEntry.getValue().rounds
-                        .stream()
-                        .allMatch(round -> round.draws
-                                .entrySet()
-                                .stream()
-                                .allMatch(entry -> validBallCriteria.get(entry.getKey()) >= entry.getValue())))
-                .mapToInt(Map.Entry::getKey)
-                .sum();
-
-        System.out.println("Valid game sum part 1: " + sum);
+    static Games parse(final List<String> lines) {
+        final int[] ids = new int[lines.size()];
+        final int[][] max = new int[Colour.COUNT][lines.size()];
+        final Tokenizer tokenizer = Tokenizer.of("");
+        for (int game = 0; game < lines.size(); game++) {
+            // `Game {id}: {count} {colour}, {count} {colour}; {count} {colour}` etc - only the most of each colour
+            // drawn in any round matters, so rounds are not kept apart
+            tokenizer.reset(lines.get(game)).expect("Game");
+            ids[game] = tokenizer.nextInt();
+            tokenizer.expect(':');
+            do {
+                final int count = tokenizer.nextInt();
+                final int colour = Colour.next(tokenizer).ordinal();
+                max[colour][game] = Math.max(max[colour][game], count);
+            }
+            while (tokenizer.skipIf(',') || tokenizer.skipIf(';'));
+            if (tokenizer.hasNext()) {
+                throw new IllegalStateException("Trailing input at %d of: %s".formatted(
+                        tokenizer.position(), lines.get(game)));
+            }
+        }
+        return new Games(ids, max[Colour.RED.ordinal()], max[Colour.GREEN.ordinal()], max[Colour.BLUE.ordinal()]);
     }
 
-    public static void part2(final Map<Integer, Game> games) {
-        final int sum = games
-                .values()
-                .stream()
-                .mapToInt(game -> {
-                    final Map<String, Integer> lowestBalls = new HashMap<>(STARTING_DRAW_MAP);
-                    game.rounds.forEach(round ->
-                            round.draws.forEach((color, qty) ->
-                                    lowestBalls.compute(color, (key, oldQty) -> Math.max(oldQty, qty))));
-                    return lowestBalls
-                            .values()
-                            .stream()
-                            .reduce(1, (a, b) -> a * b);
-                })
-                .sum();
-
-        System.out.println("Valid game sum part 2: " + sum);
+    public static long part1(final Games games) {
+        return games.possibleIdSum(PART_1_BAG);
     }
 
-    private static Game processGame(final String line) {
-        // Separate `{Game \d} : {rounds}`
-        final String[] split = line.split(":");
-
-        // Separate `{Game} {\d}`
-        final String[] headerSplit = split[0].trim().split("\\s");
-
-        // Parse Game ID
-        final int gameId = Integer.parseInt(headerSplit[1]);
-
-        // Split `{round}; {round};` etc
-        // Process into rounds
-        final Set<Round> rounds = Stream.of(split[1].split(";"))
-                .map(Day02::processRound)
-                .collect(toSet());
-
-        return new Game(gameId, rounds);
+    public static long part2(final Games games) {
+        long sum = 0;
+        for (int game = 0; game < games.size(); game++) {
+            sum += (long) games.maxRed[game] * games.maxGreen[game] * games.maxBlue[game];
+        }
+        return sum;
     }
 
-    private static Round processRound(final String round) {
-        final Map<String, Integer> draws = new HashMap<>(STARTING_DRAW_MAP);
-
-        // Split `{draw}, {draw},` etc
-        Stream.of(round.split(","))
-                .map(draw -> {
-                    // Split `{draw amount} {draw color}`
-                    final String[] drawSplit = draw.trim().split("\\s");
-                    return Map.entry(drawSplit[1].trim(), Integer.parseInt(drawSplit[0].trim()));
-                })
-                .forEach(entry -> draws.put(entry.getKey(), entry.getValue()));
+    enum Colour {
+        RED,
+        GREEN,
+        BLUE;
+
+        static final int COUNT = values().length;
+
+        private final String word = name().toLowerCase();
+
+        // Consume the colour's word, which is told apart by its first character
+        static Colour next(final Tokenizer tokenizer) {
+            final char first = tokenizer.peek();
+            for (final Colour colour : values()) {
+                if (colour.word.charAt(0) == first) {
+                    tokenizer.expect(colour.word);
+                    return colour;
+                }
+            }
+            throw new IllegalStateException("Unknown colour at %d".formatted(tokenizer.position()));
+        }
+    }
 
-        return new Round(draws);
+    /**
+     * The contents of a bag of cubes
+     */
+    record Bag(int red, int green, int blue) {
     }
 
-    record Game(int id, Set<Round> rounds) {
+    /**
+     * Every game as columns indexed by game - its id, and the most cubes of each colour shown in any of its rounds
+     */
+    record Games(int[] ids, int[] maxRed, int[] maxGreen, int[] maxBlue) {
+
+        int size() {
+            return this.ids.length;
+        }
+
+        int[] max(final Colour colour) {
+            return switch (colour) {
+                case RED -> this.maxRed;
+                case GREEN -> this.maxGreen;
+                case BLUE -> this.maxBlue;
+            };
+        }
+
+        /**
+         * @return sum of the ids of the games that could have been played with {@code bag}
+         */
+        long possibleIdSum(final Bag bag) {
+            long sum = 0;
+            for (int game = 0; game < this.ids.length; game++) {
+                if (this.maxRed[game] <= bag.red()
+                        && this.maxGreen[game] <= bag.green()
+                        && this.maxBlue[game] <= bag.blue()) {
+                    sum += this.ids[game];
+                }
+            }
+            return sum;
+        }
     }
 
-    record Round(Map<String, Integer> draws) {
+    /**
+     * Answers {@link Games#possibleIdSum(Bag)} for any number of bags without visiting the games again.
+     * <p>
+     * The distinct maxima of each colour split the bags into classes that admit the same games, so the index is a
+     * cube with a cell per class, built as a 3D prefix sum over the games. A bag is then three binary searches, for
+     * its class in each colour, and one lookup. The cube is sized by the number of distinct maxima, which stays
+     * small as cube counts are small, however many games there are
+     */
+    static class BagIndex {
+        // Limit on the cells of the cube, which is a long each
+        private static final long MAX_CELLS = 1 << 24;
+
+        private final int[][] thresholds;
+        private final long[] sums;
+
+        private BagIndex(final int[][] thresholds, final long[] sums) {
+            this.thresholds = thresholds;
+            this.sums = sums;
+        }
+
+        long possibleIdSum(final Bag bag) {
+            return this.sums[cell(
+                    classOf(Colour.RED, bag.red()),
+                    classOf(Colour.GREEN, bag.green()),
+                    classOf(Colour.BLUE, bag.blue()))];
+        }
+
+        /**
+         * @return {@link #possibleIdSum(Bag)} of each of {@code bags}, in order
+         */
+        long[] possibleIdSums(final List<Bag> bags) {
+            final long[] result = new long[bags.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = possibleIdSum(bags.get(i));
+            }
+            return result;
+        }
+
+        // Number of distinct maxima of colour at most count, so 0 admits no game
+        private int classOf(final Colour colour, final int count) {
+            final int[] colourThresholds = this.thresholds[colour.ordinal()];
+            final int idx = Arrays.binarySearch(colourThresholds, count);
+            return idx >= 0 ? idx + 1 : -idx - 1;
+        }
+
+        private int cell(final int red, final int green, final int blue) {
+            final int greens = this.thresholds[Colour.GREEN.ordinal()].length + 1;
+            final int blues = this.thresholds[Colour.BLUE.ordinal()].length + 1;
+            return (red * greens + green) * blues + blue;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the games have too many distinct maxima to index
+         */
+        static BagIndex of(final Games games) {
+            final int[][] thresholds = new int[Colour.COUNT][];
+            long cells = 1;
+            for (final Colour colour : Colour.values()) {
+                thresholds[colour.ordinal()] = Arrays.stream(games.max(colour)).sorted().distinct().toArray();
+                cells *= thresholds[colour.ordinal()].length + 1;
+            }
+            if (cells > MAX_CELLS) {
+                throw new IllegalArgumentException("Too many distinct maxima to index: " + cells + " cells");
+            }
+
+            // each game's id in the cell of the smallest bag class that admits it, then summed over every class below
+            final BagIndex index = new BagIndex(thresholds, new long[(int) cells]);
+            final long[] sums = index.sums;
+            for (int game = 0; game < games.size(); game++) {
+                sums[index.cell(
+                        index.classOf(Colour.RED, games.maxRed()[game]),
+                        index.classOf(Colour.GREEN, games.maxGreen()[game]),
+                        index.classOf(Colour.BLUE, games.maxBlue()[game]))] += games.ids()[game];
+            }
+            // prefix sum along each axis in turn, where stepping one class along an axis is a stride through the cells
+            int stride = 1;
+            for (int axis = Colour.COUNT - 1; axis >= 0; axis--) {
+                final int classes = thresholds[axis].length + 1;
+                for (int cell = 0; cell < sums.length; cell++) {
+                    if (cell / stride % classes != 0) {
+                        sums[cell] += sums[cell - stride];
+                    }
+                }
+                stride *= classes;
+            }
+            return index;
+        }
     }
 }
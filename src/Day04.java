@@ -1,11 +1,8 @@
 import util.InputUtil;
-import static java.util.stream.Collectors.toSet;
+import util.Tokenizer;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.IntStream;
 
 public class Day04 {
 
@@ -13,67 +10,83 @@ public class Day04 {
     }
 
     public static void main(final String[] args) {
-        final List<Game> games = InputUtil.lines("day04")
-                .stream()
-                .map(line -> {
-                    final var splitHeader = InputUtil.splitHalf(line, "\\:");
-                    final var splitId = InputUtil.splitHalf(splitHeader.left(), "\\s+");
-                    final var splitGame = InputUtil.splitHalf(splitHeader.right(), "\\|");
-                    final int gameId = Integer.parseInt(splitId.right());
-                    final Set<Integer> winners = InputUtil
-                            .splitStream(splitGame.left(), "\\s+")
-                            .map(Integer::parseInt)
-                            .collect(toSet());
-                    final Set<Integer> numbers = InputUtil
-                            .splitStream(splitGame.right(), "\\s+")
-                            .map(Integer::parseInt)
-                            .collect(toSet());
-                    return new Game(gameId, winners, numbers);
-                })
-                .toList();
+        final Cards cards = parse(InputUtil.lines("day04"));
 
-        part1(games);
-        part2(games);
+        System.out.println("Part 1: " + part1(cards));
+        System.out.println("Part 2: " + part2(cards));
     }
 
-    public static void part1(final List<Game> games) {
-        final int score = games
-                .stream()
-                .map(game -> game.numbers
-                        .stream()
-                        .filter(game.winners::contains)
-                        .count())
-                .mapToInt(count -> (int) Math.pow(2, count - 1))
-                .sum();
+    static Cards parse(final List<String> lines) {
+        final int[] matches = new int[lines.size()];
+        final Tokenizer tokens = Tokenizer.of("");
+        // each side of a card as a bitset of its numbers, reused from card to card
+        long[] winners = new long[2];
+        long[] numbers = new long[2];
+        for (int card = 0; card < lines.size(); card++) {
+            // `Card {id}: {winners} | {numbers}`
+            tokens.reset(lines.get(card)).expect("Card");
+            final int id = tokens.nextInt();
+            if (id != card + 1) {
+                throw new IllegalStateException("Expected card %d, got: %s".formatted(card + 1, lines.get(card)));
+            }
+            tokens.expect(':');
+            Arrays.fill(winners, 0);
+            Arrays.fill(numbers, 0);
+            while (!tokens.skipIf('|')) {
+                winners = set(winners, tokens.nextInt());
+            }
+            while (tokens.hasNext()) {
+                numbers = set(numbers, tokens.nextInt());
+            }
 
-        System.out.println("Part 1: " + score);
+            for (int i = 0; i < Math.min(winners.length, numbers.length); i++) {
+                matches[card] += Long.bitCount(winners[i] & numbers[i]);
+            }
+        }
+        return new Cards(matches);
     }
 
-    public static void part2(final List<Game> games) {
-        // copy map, seeded to 1
-        final Map<Integer, Integer> copies = new HashMap<>();
-        final int maxId = games
-                .stream()
-                .mapToInt(game -> {
-                    copies.put(game.id, 1);
-                    return game.id;
-                })
-                .max()
-                .orElseThrow();
+    public static long part1(final Cards cards) {
+        long score = 0;
+        for (final int matches : cards.matches()) {
+            score += matches > 0 ? 1L << (matches - 1) : 0;
+        }
+        return score;
+    }
 
-        games.forEach(game -> {
-            final int numWinners = (int) game.numbers.stream().filter(game.winners::contains).count();
-            if (game.id < maxId && numWinners > 0) {
-                IntStream.rangeClosed(game.id + 1, Math.min(game.id + numWinners, maxId))
-                        .forEach(i -> copies.compute(i, (key, old) -> old + copies.get(game.id)));
+    public static long part2(final Cards cards) {
+        final int[] matches = cards.matches();
+        // every card won adds a copy to each of a run of following cards, so runs are recorded as the change in
+        // copies where they start and end, and the copies of each card are the running total of the changes
+        final long[] changes = new long[matches.length + 1];
+        long copies = 1;
+        long score = 0;
+        for (int card = 0; card < matches.length; card++) {
+            copies += changes[card];
+            score += copies;
+            if (matches[card] > 0) {
+                changes[card + 1] += copies;
+                changes[Math.min(matches.length, card + 1 + matches[card])] -= copies;
             }
-        });
-
-        final int score = copies.values().stream().mapToInt(i -> i).sum();
+        }
+        return score;
+    }
 
-        System.out.println("Part 2: " + score);
+    // Set bit `number` in `bits`, growing it if needed
+    private static long[] set(final long[] bits, final int number) {
+        if (number < 0) {
+            throw new IllegalStateException("Negative number: " + number);
+        }
+        final int word = number >>> 6;
+        final long[] grown = word < bits.length ? bits : Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        grown[word] |= 1L << number;
+        return grown;
     }
 
-    record Game(int id, Set<Integer> winners, Set<Integer> numbers) {
+    /**
+     * The number of each card's numbers that are winners, indexed by card in order of id, and counted once when the
+     * cards are parsed
+     */
+    record Cards(int[] matches) {
     }
 }
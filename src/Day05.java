@@ -1,133 +1,182 @@
 import util.InputUtil;
+import util.LongIntervalMap;
+import util.LongIntervalSet;
+import util.LongMinScanner;
+import util.MappedInput;
 import util.Pair;
-import static java.util.stream.Collectors.collectingAndThen;
+import util.Tokenizer;
 import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
 
+import java.io.BufferedReader;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 import java.util.stream.IntStream;
-import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 public class Day05 {
-    private static final Pattern SEED_LIST_PATTERN = Pattern.compile("^seeds: (.+)\n\n((?>.|\n)+)$");
-    private static final Pattern ALMANAC_MAP_PATTERN = Pattern.compile("(\\w+)-to-(\\w+) map:\n((?>.|\n)+)");
-    private static final Pattern ENTRY_PATTERN = Pattern.compile("^(\\d+)\\s+(\\d+)\\s+(\\d+)$");
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+    private static final String BRUTE_FORCE_ARG = "--brute-force";
 
     private Day05() {
     }
 
     public static void main(final String[] args) {
-        final Pair<List<Long>, Almanac> input = parseInput(InputUtil.file("test"));
+        final Pair<List<Long>, Almanac> input = parseInput(InputUtil.mapped("day05"));
 
-        part1(input.right(), input.left());
-        part2_2(input.right(), input.left());
-    }
+        final Almanac almanac = input.right();
+        final List<Long> seeds = input.left();
 
-    public static void part1(final Almanac almanac, final List<Long> seeds) {
-        final Pair<Long, Map<Type, Long>> solution = seeds
-                .stream()
-                .map(seed -> new Pair<>(seed, testSeed(almanac, seed)))
-                .min(Comparator.comparingLong(p -> p.right().get(Type.LOCATION)))
-                .orElseThrow();
+        final long seed = bestSeed(almanac, seeds);
+        printSolution(testSeed(almanac, seed));
+        System.out.println("Part 1: " + part1(almanac, seeds));
 
-        printSolution(solution.right());
+        final long start = System.currentTimeMillis();
+        final long part2 = part2_2(almanac, seeds);
+        System.out.printf("Part 2 (in %d minutes): %s%n", minutesSince(start), part2);
+        System.out.println("Part 2: " + part2_3(almanac, seeds));
+
+        // checking every seed takes minutes, so the brute force oracle only runs when asked for
+        if (List.of(args).contains(BRUTE_FORCE_ARG)) {
+            final long bruteForceStart = System.currentTimeMillis();
+            final long bruteForceSeed = bestRangeSeed(almanac, seeds, PROGRESS_INTERVAL,
+                    (scanned, total) -> System.out.printf("Part 2: scanned %d of %d seeds%n", scanned, total));
+            final Map<Type, Long> solution = testSeed(almanac, bruteForceSeed);
+            printSolution(solution);
+            System.out.printf("Part 2 (in %d minutes): %s%n",
+                    minutesSince(bruteForceStart), solution.get(Type.LOCATION));
+        }
+    }
 
-        System.out.println("Part 1: " + solution.right().get(Type.LOCATION));
+    public static long part1(final Almanac almanac, final List<Long> seeds) {
+        return almanac.seedToLocation().eval(bestSeed(almanac, seeds));
     }
 
-    public static void part2_1(final Almanac almanac, final List<Long> seeds) {
-        final List<Range> ranges = IntStream.iterate(0, i -> i < seeds.size() - 1, i -> i + 2)
-                .mapToObj(i -> new Range(seeds.get(i), seeds.get(i) + seeds.get(i + 1)))
-                .toList();
+    public static long part2_1(final Almanac almanac, final List<Long> seeds) {
+        return almanac.seedToLocation().eval(bestRangeSeed(almanac, seeds, PROGRESS_INTERVAL, (scanned, total) -> { }));
+    }
 
-        final long start = System.currentTimeMillis();
+    public static long part2_2(final Almanac almanac, final List<Long> seeds) {
+        return almanac.mapThrough(Type.SEED, Type.LOCATION, seedSet(seeds)).min();
+    }
 
-        final Pair<Long, Map<Type, Long>> solution = ranges
-                .stream()
-                .flatMap(range -> LongStream.range(range.start, range.end).boxed())
-                .distinct()
-                .parallel()
-                .map(seed -> new Pair<>(seed, testSeed(almanac, seed)))
-                .min(Comparator.comparingLong(p -> p.right().get(Type.LOCATION)))
+    public static long part2_3(final Almanac almanac, final List<Long> seeds) {
+        // Locations only ever grow within a piece of the composed map, so the least location of a seed range is at
+        // the start of one of the pieces that it intersects
+        return IntStream.iterate(0, i -> i < seeds.size() - 1, i -> i + 2)
+                .mapToLong(i -> almanac.seedToLocation()
+                        .min(seeds.get(i), Math.addExact(seeds.get(i), seeds.get(i + 1))))
+                .min()
                 .orElseThrow();
-
-        final long end = System.currentTimeMillis();
-        final long numMinutes = Duration.ofMillis(end - start).toMinutes();
-
-        printSolution(solution.right());
-
-        System.out.printf("Part 2 (in %d minutes): %s%n", numMinutes, solution.right().get(Type.LOCATION));
     }
 
-    public static void part2_2(final Almanac almanac, final List<Long> seeds) {
-        final List<Range> ranges = IntStream.iterate(0, i -> i < seeds.size() - 1, i -> i + 2)
-                .mapToObj(i -> new Range(seeds.get(i), seeds.get(i) + seeds.get(i + 1)))
-                .toList();
-
-        final long start = System.currentTimeMillis();
-
-        final var solution = ranges
+    // The listed seed with the least location
+    static long bestSeed(final Almanac almanac, final List<Long> seeds) {
+        return seeds
                 .stream()
-                .map(seed -> new Pair<>(seed, testSeedRange(almanac, seed)))
-                .mapToLong(p -> p.right().start)
-                .min()
+                .min(Comparator.comparingLong(almanac.seedToLocation()::eval))
                 .orElseThrow();
+    }
 
-        final long end = System.currentTimeMillis();
-        final long numMinutes = Duration.ofMillis(end - start).toMinutes();
+    // The seed of the seed ranges with the least location, checking every seed in turn as an oracle for the range
+    // based solutions, and calling listener every reportEvery while it runs
+    static long bestRangeSeed(final Almanac almanac,
+                              final List<Long> seeds,
+                              final Duration reportEvery,
+                              final LongMinScanner.ProgressListener listener) {
+        final LongMinScanner scanner = LongMinScanner.of(seedSet(seeds),
+                tests -> almanac.evalAll(Type.SEED, Type.LOCATION, tests));
+        return scanner.scan(ForkJoinPool.commonPool(), reportEvery, listener).arg();
+    }
 
-        System.out.printf("Part 2 (in %d minutes): %s%n", numMinutes, solution);
+    private static long minutesSince(final long startMillis) {
+        return Duration.ofMillis(System.currentTimeMillis() - startMillis).toMinutes();
+    }
+
+    // Seed list as ranges of start and length
+    static LongIntervalSet seedSet(final List<Long> seeds) {
+        return IntStream.iterate(0, i -> i < seeds.size() - 1, i -> i + 2)
+                .mapToObj(i -> LongIntervalSet.of(seeds.get(i), Math.addExact(seeds.get(i), seeds.get(i + 1))))
+                .reduce(LongIntervalSet.empty(), LongIntervalSet::union);
     }
 
     // Parse input
     static Pair<List<Long>, Almanac> parseInput(final String input) {
-        final var stuff = SEED_LIST_PATTERN.matcher(input).results().findFirst().orElseThrow();
-        final List<Long> seeds = InputUtil.splitStream(stuff.group(1), "\\s").map(Long::parseLong).toList();
-        final Almanac almanac = parseAlmanac(stuff.group(2));
-
-        return new Pair<>(seeds, almanac);
+        return parseInput(input.lines().iterator());
     }
 
-    // Parse Almanac
-    static Almanac parseAlmanac(final String input) {
-        return InputUtil.splitStream(input, "\\n\\n")
-                .map(Day05::parseAMap)
-                .collect(collectingAndThen(toList(), Almanac::from));
+    static Pair<List<Long>, Almanac> parseInput(final MappedInput input) {
+        return parseInput(input.lines().iterator());
     }
 
-    // Parse Almanac Maps
-    static AMap parseAMap(final String input) {
-        final var stuff = ALMANAC_MAP_PATTERN.matcher(input).results().findFirst().orElseThrow();
-        final Type srcType = Type.valueOf(stuff.group(1).toUpperCase());
-        // final Type destType = Type.valueOf(stuff.group(2).toUpperCase());
+    static Pair<List<Long>, Almanac> parseInput(final BufferedReader reader) {
+        return parseInput(reader.lines().iterator());
+    }
 
-        final Collection<Entry> entries = stuff.group(3).lines()
-                .map(Day05::parseEntry)
-                .toList();
+    // Parse input a line at a time, adding each entry to its map's intervals as it is read
+    static Pair<List<Long>, Almanac> parseInput(final Iterator<? extends CharSequence> lines) {
+        if (!lines.hasNext()) {
+            throw new IllegalStateException("Missing seed list");
+        }
+        final Tokenizer tokens = Tokenizer.of(lines.next()).expect("seeds:");
+        final List<Long> seeds = new ArrayList<>();
+        while (tokens.hasNext()) {
+            seeds.add(tokens.nextLong());
+        }
 
-        return AMap.from(srcType, entries);
+        final List<AMap> almanacMaps = new ArrayList<>();
+        Type srcType = null;
+        LongIntervalMap.Builder entries = null;
+        while (lines.hasNext()) {
+            tokens.reset(lines.next());
+            if (!tokens.hasNext()) {
+                // blank lines end a map
+                if (srcType != null) {
+                    almanacMaps.add(new AMap(srcType, entries.build()));
+                    srcType = null;
+                }
+            }
+            else if (srcType == null) {
+                srcType = parseSrcType(tokens);
+                entries = new LongIntervalMap.Builder();
+            }
+            else {
+                final long dest = tokens.nextLong();
+                final long src = tokens.nextLong();
+                final long length = tokens.nextLong();
+                if (length < 0) {
+                    throw new IllegalStateException("Negative range length: " + length);
+                }
+                // both the source range and the destination range it shifts onto must fit in a long
+                if (dest > Long.MAX_VALUE - length || src > Long.MAX_VALUE - length) {
+                    throw new IllegalStateException("Range overflows a long: %d %d %d".formatted(dest, src, length));
+                }
+                entries.add(src, src + length, Math.subtractExact(dest, src));
+            }
+        }
+        if (srcType != null) {
+            almanacMaps.add(new AMap(srcType, entries.build()));
+        }
+        return new Pair<>(seeds, Almanac.from(almanacMaps));
     }
 
-    // Parse Almanac Entries
-    static Entry parseEntry(final String input) {
-        final var stuff = ENTRY_PATTERN.matcher(input).results().findFirst().orElseThrow();
-        return Entry.from(
-                Long.parseLong(stuff.group(1)),
-                Long.parseLong(stuff.group(2)),
-                Long.parseLong(stuff.group(3)));
+    // Parse the SRC type of a `{src}-to-{dest} map:` header
+    private static Type parseSrcType(final Tokenizer tokens) {
+        final CharSequence name = tokens.nextToken();
+        int dash = 0;
+        while (dash < name.length() && name.charAt(dash) != '-') {
+            dash++;
+        }
+        tokens.expect("map:");
+        return Type.valueOf(name.subSequence(0, dash).toString().toUpperCase());
     }
 
     // Perform a seed test
@@ -151,26 +200,6 @@ public class Day05 {
         }
     }
 
-    static Range testSeedRange(final Almanac almanac, final Range range) {
-        final var res = testRangeRecur(almanac, Type.SEED, range);
-        return res.stream().sorted().findFirst().orElseThrow();
-    }
-
-    private static Collection<Range> testRangeRecur(final Almanac almanac, final Type curType, final Range range) {
-        if (curType.hasNext()) {
-            final Type next = curType.next();
-            // The parameter range may intersect one-to-many ranges in the entry list, including void ranges
-            return almanac
-                    .almanacMaps
-                    .get(curType)
-                    .bisect(range)
-                    .stream()
-                    .flatMap(r -> testRangeRecur(almanac, next, r).stream())
-                    .collect(toSet());
-        }
-        return Set.of(range);
-    }
-
     // Pretty print
     static void printSolution(final Map<Type, Long> solution) {
         System.out.println(Stream.of(Type.values())
@@ -181,124 +210,65 @@ public class Day05 {
     /**
      * Almanac of tables keyed by their SRC type
      */
-    record Almanac(Map<Type, AMap> almanacMaps) {
+    record Almanac(Map<Type, AMap> almanacMaps, LongIntervalMap seedToLocation) {
 
         long eval(final Type type, final long test) {
             return this.almanacMaps.get(type).eval(test);
         }
 
-        static Almanac from(final Collection<AMap> almanacMaps) {
-            return new Almanac(almanacMaps.stream().collect(toMap(AMap::srcType, Function.identity())));
-        }
-    }
-
-    /**
-     * Almanac Map with entries cached for optimal lookup
-     */
-    record AMap(Type srcType, Collection<Entry> entryBySrc) {
-
-        long eval(final long test) {
-            return this.entryBySrc.stream()
-                    .filter(e -> e.test(test))
-                    .findFirst()
-                    .map(e -> e.eval(test))
-                    .orElse(test);
-        }
-
-        Collection<Range> bisect(final Range range) {
-            final Collection<Range> toBeEaten = new HashSet<>();
-            toBeEaten.add(range);
-
-            final Collection<Range> eaten = new HashSet<>();
-
-            for (final Entry entry : this.entryBySrc) {
-                final Collection<Range> toModify = toBeEaten.stream()
-                        .filter(entry::overlapSrc)
-                        .collect(toSet());
-
-                final Collection<Range> replacements = toModify.stream()
-                        .<Range>mapMulti((r, acc) -> {
-                            final Range intersect = r.intersect(entry.src);
-                            eaten.add(new Range(entry.eval(intersect.start), entry.eval(intersect.end)));
-                            r.bisect(intersect).forEach(acc);
-                        })
-                        .collect(toSet());
-
-                toBeEaten.removeAll(toModify);
-                toBeEaten.addAll(replacements);
+        /**
+         * Evaluate every element of {@code tests} from {@code from} through to {@code to}, in place
+         */
+        long[] evalAll(final Type from, final Type to, final long[] tests) {
+            for (Type type = from; type != to; type = type.next()) {
+                this.almanacMaps.get(type).evalAll(tests);
             }
-
-            return Stream.concat(eaten.stream(), toBeEaten.stream()).collect(toSet());
+            return tests;
         }
 
-        static AMap from(final Type srcType, final Collection<Entry> entries) {
-            return new AMap(srcType, entries.stream().sorted(Comparator.comparing(Entry::src)).toList()
-            );
-        }
-    }
-
-    /**
-     * Almanac entry with src and dest ranges
-     */
-    record Entry(Range dest, Range src, long length) {
-
-        boolean test(final long test) {
-            return this.src.isValid(test);
+        /**
+         * @return the image of {@code tests} from {@code from} through to {@code to}
+         */
+        LongIntervalSet mapThrough(final Type from, final Type to, final LongIntervalSet tests) {
+            LongIntervalSet mapped = tests;
+            for (Type type = from; type != to; type = type.next()) {
+                mapped = mapped.mapThrough(this.almanacMaps.get(type).index());
+            }
+            return mapped;
         }
 
-        long eval(final long test) {
-            return this.dest.start + test - this.src.start;
+        /**
+         * @return a single map from {@code from} to {@code to}, composed from every map in between
+         */
+        LongIntervalMap compose(final Type from, final Type to) {
+            return compose(this.almanacMaps, from, to);
         }
 
-        boolean overlapSrc(final Range range) {
-            return this.src.overlaps(range);
+        static Almanac from(final Collection<AMap> almanacMaps) {
+            final Map<Type, AMap> byType = almanacMaps.stream().collect(toMap(AMap::srcType, Function.identity()));
+            return new Almanac(byType, compose(byType, Type.SEED, Type.LOCATION));
         }
 
-        static Entry from(final long dest, final long src, final long length) {
-            return new Entry(new Range(dest, dest + length), new Range(src, src + length), length);
+        private static LongIntervalMap compose(final Map<Type, AMap> almanacMaps, final Type from, final Type to) {
+            LongIntervalMap composed = LongIntervalMap.identity();
+            for (Type type = from; type != to; type = type.next()) {
+                composed = composed.andThen(almanacMaps.get(type).index());
+            }
+            return composed;
         }
     }
 
     /**
-     * Description of an inclusive start to exclusive range object for use in Almanac Entries
+     * Almanac Map with its entries indexed as sorted intervals for evaluation
      */
-    record Range(long start, long end)
-            implements Comparable<Range> {
-
-        boolean isValid(final long test) {
-            return test >= this.start && test < this.end;
-        }
-
-        boolean overlaps(final Range range) {
-            return this.start < range.end && this.end > range.start;
-        }
+    record AMap(Type srcType, LongIntervalMap index) {
 
-        boolean contains(final Range range) {
-            return this.start < range.start && this.end > range.end;
-        }
-
-        Range intersect(final Range range) {
-            return new Range(Math.max(this.start, range.start), Math.min(this.end, range.end));
-        }
-
-        Collection<Range> bisect(final Range range) {
-            if (equals(range)) {
-                return Collections.emptySet();
-            }
-
-            if (contains(range)) {
-                return Set.of(
-                        new Range(this.start, range.start),
-                        new Range(range.end, this.end)
-                             );
-            }
-
-            return Set.of(range.intersect(this));
+        long eval(final long test) {
+            return this.index.eval(test);
         }
 
-        @Override
-        public int compareTo(final Range o) {
-            return Long.compare(this.start, o.start);
+        long[] evalAll(final long[] tests) {
+            return this.index.evalAll(tests);
         }
     }
 
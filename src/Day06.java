@@ -1,10 +1,9 @@
 import util.InputUtil;
-import util.Pair;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
-import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 public class Day06 {
@@ -15,11 +14,18 @@ public class Day06 {
     }
 
     public static void main(final String[] args) {
-        final var v = PATTERN.matcher(InputUtil.file("day06"))
+        final List<Race> races = parse(InputUtil.file("day06"));
+
+        System.out.println("Part 1: " + part1(races));
+        System.out.println("Part 2: " + part2(races));
+    }
+
+    static List<Race> parse(final String input) {
+        final var v = PATTERN.matcher(input)
                 .results()
                 .flatMap(r -> Stream.of(r.group(1), r.group(2)))
                 .map(r -> r.trim().split(" +"))
-                .map(ar -> Stream.of(ar).map(Integer::parseInt).toList())
+                .map(ar -> Stream.of(ar).map(Long::parseLong).toList())
                 .toList();
 
         final var times = v.get(0);
@@ -31,15 +37,14 @@ public class Day06 {
             races.add(new Race(times.get(i), dists.get(i)));
         }
 
-        part1(races);
-        part2(races);
+        return races;
     }
 
-    public static void part1(final List<Race> races) {
-        System.out.println("Part 1: " + races.stream().mapToLong(Race::numWins).reduce(1, (a, b) -> a * b));
+    public static long part1(final List<Race> races) {
+        return races.stream().mapToLong(Race::numWins).reduce(1, (a, b) -> a * b);
     }
 
-    public static void part2(final List<Race> races) {
+    public static long part2(final List<Race> races) {
         final StringBuilder longTime = new StringBuilder(5);
         final StringBuilder longDist = new StringBuilder(5);
 
@@ -48,35 +53,105 @@ public class Day06 {
             longDist.append(race.distance);
         }
 
-        final Race longRace = new Race(Long.parseLong(longTime.toString()), Long.parseLong(longDist.toString()));
+        // Concatenated numbers soon outgrow a long, so the long race is solved at arbitrary precision
+        final BigRace longRace = new BigRace(new BigInteger(longTime.toString()), new BigInteger(longDist.toString()));
+        return longRace.numWins().longValueExact();
+    }
 
-        System.out.println("Part 2: " + longRace.numWins());
+    /**
+     * Solve every race of {@code times[i]} and {@code distances[i]}
+     *
+     * @return number of ways to win each race
+     */
+    static long[] numWins(final long[] times, final long[] distances) {
+        if (times.length != distances.length) {
+            throw new IllegalArgumentException("Mismatched lengths: %d, %d".formatted(times.length, distances.length));
+        }
+        final long[] wins = new long[times.length];
+        for (int i = 0; i < times.length; i++) {
+            wins[i] = Race.numWins(times[i], distances[i]);
+        }
+        return wins;
     }
 
+    /**
+     * Holding the button for {@code h} of {@code time} ms travels {@code h * (time - h)} mm. That distance rises up to
+     * half the time and mirrors down after, so the winning holds are a single run centred on {@code time / 2}, and
+     * finding its first hold is enough to count it
+     */
     record Race(long time, long distance) {
-        Pair<Long, Long> getBest() {
-            final long idx = (long) Math.floor(this.time / 2.0);
-            final long dist = idx * (this.time - idx);
-            return new Pair<>(idx, dist);
+
+        Race {
+            if (time < 0 || distance < 0) {
+                throw new IllegalArgumentException("Bad race: " + time + ", " + distance);
+            }
         }
 
         long numWins() {
-            final var best = getBest();
+            return numWins(this.time, this.distance);
+        }
 
-            // sanity check
-            if (best.right() < this.distance) {
+        // Binary search the rising half for the first winning hold
+        static long numWins(final long time, final long distance) {
+            long lo = 0;
+            long hi = time / 2;
+            if (!wins(time, distance, hi)) {
                 return 0;
             }
+            while (lo < hi) {
+                final long mid = (lo + hi) >>> 1;
+                if (wins(time, distance, mid)) {
+                    hi = mid;
+                }
+                else {
+                    lo = mid + 1;
+                }
+            }
+            return time - 2 * lo + 1;
+        }
+
+        // Does holding for hold beat distance, compared exactly in 128 bits as the product can overflow a long
+        private static boolean wins(final long time, final long distance, final long hold) {
+            final long rest = time - hold;
+            return Math.multiplyHigh(hold, rest) > 0 || Long.compareUnsigned(hold * rest, distance) > 0;
+        }
+    }
+
+    /**
+     * A Race of any size, solved in closed form. The winning holds lie strictly between the roots of
+     * {@code h^2 - time * h + distance}, so the first one is found from an integer square root and corrected by at
+     * most a step either way
+     */
+    record BigRace(BigInteger time, BigInteger distance) {
+
+        BigRace {
+            if (time.signum() < 0 || distance.signum() < 0) {
+                throw new IllegalArgumentException("Bad race: " + time + ", " + distance);
+            }
+        }
 
-            final long numWinsLeft = LongStream.iterate(best.left(), i -> i >= 1, i -> i - 1)
-                    .takeWhile(i -> (i * (this.time - i)) > this.distance)
-                    .count();
+        BigInteger numWins() {
+            final BigInteger discriminant = this.time.multiply(this.time).subtract(this.distance.shiftLeft(2));
+            if (discriminant.signum() < 0) {
+                return BigInteger.ZERO;
+            }
 
-            if ((this.time % 2) == 0) {
-                return ((numWinsLeft - 1) * 2) + 1;
+            final BigInteger half = this.time.shiftRight(1);
+            BigInteger first = this.time.subtract(discriminant.sqrt()).shiftRight(1);
+            while (first.compareTo(half) <= 0 && !wins(first)) {
+                first = first.add(BigInteger.ONE);
+            }
+            while (first.signum() > 0 && wins(first.subtract(BigInteger.ONE))) {
+                first = first.subtract(BigInteger.ONE);
             }
+            if (first.compareTo(half) > 0) {
+                return BigInteger.ZERO;
+            }
+            return this.time.subtract(first.shiftLeft(1)).add(BigInteger.ONE);
+        }
 
-            return (numWinsLeft * 2);
+        private boolean wins(final BigInteger hold) {
+            return hold.multiply(this.time.subtract(hold)).compareTo(this.distance) > 0;
         }
     }
 }
@@ -1,263 +1,192 @@
 import util.InputUtil;
-import static java.util.stream.Collectors.counting;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
-import static java.util.stream.Collectors.toSet;
+import util.RadixSort;
+import util.Tokenizer;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.BiPredicate;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 public class Day07 {
 
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
     private Day07() {
     }
 
     public static void main(final String[] args) {
-        final List<Play> plays = InputUtil.splitStream(InputUtil.file("day07"), "\n")
+        final List<Play> plays = parse(InputUtil.lines("day07"));
+
+        System.out.println("Part 1: " + part1(plays));
+        System.out.println("Part 2: " + part2(plays));
+    }
+
+    static List<Play> parse(final List<String> lines) {
+        final Tokenizer tokens = Tokenizer.of("");
+        return lines
+                .stream()
                 .map(line -> {
-                    final var split = InputUtil.splitHalf(line, " ");
-                    final int bid = Integer.parseInt(split.right());
-                    final List<Card> cards = InputUtil.splitStream(split.left(), "")
-                            .map(Card::from)
-                            .toList();
+                    // `{cards} {bid}`
+                    final Hand hand = Hand.parse(tokens.reset(line).nextToken());
+                    final int bid = tokens.nextInt();
 
-                    return new Play(Hand.from(cards), bid);
+                    return new Play(hand, bid);
                 })
                 .toList();
-
-        part1(plays);
-        part2(plays);
     }
 
-    public static void part1(final List<Play> plays) {
-        System.out.println("Part 1: " + doPart(plays, new Evaluator.Part1()));
+    public static long part1(final List<Play> plays) {
+        return doPart(plays, Rules.STANDARD);
     }
 
-    public static void part2(final List<Play> plays) {
-        System.out.println("Part 2: " + doPart(plays, new Evaluator.Part2()));
+    public static long part2(final List<Play> plays) {
+        return doPart(plays, Rules.JOKERS);
     }
 
-    private static long doPart(final List<Play> plays, final Evaluator evaluator) {
-        final AtomicLong ctr = new AtomicLong(plays.size());
-
-        final long value = plays.stream()
-                .sorted(evaluator.getComparator().reversed())
-                .mapToLong(play -> play.bid * ctr.getAndDecrement())
+    private static long doPart(final List<Play> plays, final Rules rules) {
+        // plays are loaded last first, so that the stable sort leaves identical hands in reverse input order and the
+        // earlier play of a tie takes the higher rank
+        final int[] hands = new int[plays.size()];
+        final long[] bids = new long[plays.size()];
+        for (int i = 0; i < hands.length; i++) {
+            final Play play = plays.get(hands.length - 1 - i);
+            hands[i] = play.hand.pack(rules);
+            bids[i] = play.bid;
+        }
+        RadixSort.sortByKey(hands, bids, Hand.PACKED_BITS);
+
+        // hands are now weakest first, so a bid's rank is its index plus one
+        if (bids.length < PARALLEL_THRESHOLD) {
+            long winnings = 0;
+            for (int i = 0; i < bids.length; i++) {
+                winnings += bids[i] * (i + 1);
+            }
+            return winnings;
+        }
+        return IntStream.range(0, bids.length)
+                .parallel()
+                .mapToLong(i -> bids[i] * (i + 1))
                 .sum();
-
-        return value;
     }
 
     // A play of the game
     record Play(Hand hand, long bid) {
     }
 
-    // A hand in the game - CardStats is a utility struct that holds cached info for evaluation
-    record Hand(List<Card> cards, CardStats cardStats) {
-        static Hand from(final List<Card> cards) {
-            return new Hand(cards, CardStats.from(cards));
-        }
-
-        static Comparator<Hand> getCardComp(final Comparator<Card> cardComp) {
-            return Comparator.<Hand, Card>comparing(hand -> hand.cards.get(0), cardComp)
-                    .thenComparing(hand -> hand.cards.get(1), cardComp)
-                    .thenComparing(hand -> hand.cards.get(2), cardComp)
-                    .thenComparing(hand -> hand.cards.get(3), cardComp)
-                    .thenComparing(hand -> hand.cards.get(4), cardComp);
-        }
-    }
-
-    // A way to evaluate if a Hand matches a certain Score criteria
-    interface Evaluator {
-        boolean hasPair(Hand hand);
-
-        boolean hasPairs(Hand hand);
-
-        boolean hasThree(Hand hand);
-
-        boolean hasFull(Hand hand);
-
-        boolean hasFour(Hand hand);
-
-        boolean hasFive(Hand hand);
-
-        Comparator<Play> getComparator();
+    // A hand in the game - code is the hand's cards read as a base 13 number, first card most significant, which
+    // indexes the Score tables
+    record Hand(int code) {
+        static final int SIZE = 5;
 
-        record Part1()
-                implements Evaluator {
-            @Override
-            public boolean hasPair(final Hand hand) {
-                return hand.cardStats.contains(2);
-            }
-
-            @Override
-            public boolean hasPairs(final Hand hand) {
-                return hand.cardStats.contains(2, 2);
-            }
-
-            @Override
-            public boolean hasThree(final Hand hand) {
-                return hand.cardStats.contains(3);
-            }
-
-            @Override
-            public boolean hasFull(final Hand hand) {
-                return hasThree(hand) && hasPair(hand);
-            }
-
-            @Override
-            public boolean hasFour(final Hand hand) {
-                return hand.cardStats.contains(4);
-            }
+        // a nibble per card, and three bits for the Score
+        static final int PACKED_BITS = 4 * SIZE + 3;
 
-            @Override
-            public boolean hasFive(final Hand hand) {
-                return hand.cardStats.contains(5);
-            }
-
-            @Override
-            public Comparator<Play> getComparator() {
-                return Comparator.<Play, Score>comparing(play -> Score.evaluate(this, play.hand))
-                        .thenComparing(play -> play.hand, Hand.getCardComp(Card.STD));
+        /**
+         * @return the hand packed so that stronger hands are greater - the Score in bits 20 and up, then a nibble
+         * per card from the first card down
+         */
+        int pack(final Rules rules) {
+            int cards = 0;
+            int rest = this.code;
+            for (int i = 0; i < SIZE; i++, rest /= Card.COUNT) {
+                cards |= rules.rank(rest % Card.COUNT) << 4 * i;
             }
+            return rules.score(this).ordinal() << 4 * SIZE | cards;
         }
 
-        record Part2()
-                implements Evaluator {
-            @Override
-            public boolean hasPair(final Hand hand) {
-                return hand.cardStats.contains(2) || hand.cardStats.contains(Card.JACK);
+        static Hand parse(final CharSequence cards) {
+            if (cards.length() != SIZE) {
+                throw new IllegalArgumentException("Bad hand: " + cards);
             }
-
-            @Override
-            public boolean hasPairs(final Hand hand) {
-                return hand.cardStats.contains(2, 2) || hand.cardStats.contains(Card.JACK, 2);
-            }
-
-            @Override
-            public boolean hasThree(final Hand hand) {
-                return hand.cardStats.contains(3) || hasJackSupplement(hand, 3);
-            }
-
-            @Override
-            public boolean hasFull(final Hand hand) {
-                final long numJacks = hand.cardStats.count(Card.JACK);
-                if (numJacks == 0) {
-                    // Normal resolve
-                    return hand.cardStats.contains(2) && hand.cardStats.contains(3);
-                }
-
-                if (numJacks >= 4) {
-                    return true;
-                }
-
-                // if jacks >= 2 && TWOS means we can make the triple
-                if (numJacks >= 2 && hand.cardStats.containsWithout(2, Card.JACK)) {
-                    return true;
-                }
-
-                // jacks >= 1
-                return hand.cardStats.contains(3) || hand.cardStats.contains(2, 2);
-            }
-
-            @Override
-            public boolean hasFour(final Hand hand) {
-                return hand.cardStats.contains(4) || hasJackSupplement(hand, 4);
-            }
-
-            @Override
-            public boolean hasFive(final Hand hand) {
-                return hand.cardStats.contains(5) || hasJackSupplement(hand, 5);
-            }
-
-            private boolean hasJackSupplement(final Hand hand, final int thresh) {
-                return (hand.cardStats.contains(Card.JACK) && hand.cardStats.containsWithout(
-                        thresh - hand.cardStats.count(Card.JACK), Card.JACK));
+            int code = 0;
+            for (int i = 0; i < SIZE; i++) {
+                code = code * Card.COUNT + Card.from(cards.charAt(i)).ordinal();
             }
+            return new Hand(code);
+        }
 
-            @Override
-            public Comparator<Play> getComparator() {
-                return Comparator.<Play, Score>comparing(play -> Score.evaluate(this, play.hand))
-                        .thenComparing(play -> play.hand, Hand.getCardComp(Card.AS_JOKER));
+        @Override
+        public String toString() {
+            final char[] pips = new char[SIZE];
+            for (int i = SIZE - 1, rest = this.code; i >= 0; i--, rest /= Card.COUNT) {
+                pips[i] = Card.VALUES[rest % Card.COUNT].pip;
             }
+            return new String(pips);
         }
     }
 
-    // Utility structure that holds
-    record CardStats(Map<Long, Set<Card>> cardsByCounts, Map<Card, Long> countPerCard) {
-        boolean contains(final long key) {
-            return this.cardsByCounts.containsKey(key);
-        }
-
-        boolean contains(final long key, final int count) {
-            return contains(key) && this.cardsByCounts.get(key).size() >= count;
-        }
-
-        boolean containsWithout(final long key, final Card card) {
-            return this.cardsByCounts.getOrDefault(key, Collections.EMPTY_SET).stream().anyMatch(c -> !c.equals(card));
-        }
+    // How cards rank, and how Jacks count towards a Score
+    enum Rules {
+        STANDARD,
+        // Jacks are Jokers, the weakest card, which count as whichever card makes the best Score
+        JOKERS;
 
-        boolean contains(final Card card) {
-            return this.countPerCard.containsKey(card);
+        // rank of the Card with ordinal card
+        int rank(final int card) {
+            return switch (this) {
+                case STANDARD -> card;
+                case JOKERS -> card == Card.JACK.ordinal() ? 0 : card + 1;
+            };
         }
 
-        boolean contains(final Card card, final int count) {
-            return contains(card) && count(card) >= count;
+        Score score(final Hand hand) {
+            return switch (this) {
+                case STANDARD -> Score.VALUES[ScoreTable.STANDARD[hand.code]];
+                case JOKERS -> Score.VALUES[ScoreTable.JOKERS[hand.code]];
+            };
         }
+    }
 
-        long count(final Card card) {
-            return this.countPerCard.getOrDefault(card, 0L);
-        }
-
-        static CardStats from(final List<Card> cards) {
-            final var tracker = cards
-                    .stream()
-                    .collect(groupingBy(Function.identity(), counting()));
-            final var counter = tracker.entrySet()
-                    .stream()
-                    .collect(groupingBy(Map.Entry::getValue, mapping(Map.Entry::getKey, toSet())));
-
-            return new CardStats(counter, tracker);
+    // Score of every possible hand under each of the Rules, indexed by Hand code
+    private static class ScoreTable {
+        private static final byte[] STANDARD = build(Rules.STANDARD);
+        private static final byte[] JOKERS = build(Rules.JOKERS);
+
+        private static byte[] build(final Rules rules) {
+            int numHands = 1;
+            for (int i = 0; i < Hand.SIZE; i++) {
+                numHands *= Card.COUNT;
+            }
+            final byte[] table = new byte[numHands];
+            final int[] counts = new int[Card.COUNT];
+            for (int code = 0; code < numHands; code++) {
+                Arrays.fill(counts, 0);
+                for (int rest = code, i = 0; i < Hand.SIZE; rest /= Card.COUNT, i++) {
+                    counts[rest % Card.COUNT]++;
+                }
+                table[code] = (byte) Score.from(counts, rules).ordinal();
+            }
+            return table;
         }
     }
 
-    // Card ranks and their sorting nuances
+    // Card ranks
     enum Card {
-        TWO("2"),
-        THREE("3"),
-        FOUR("4"),
-        FIVE("5"),
-        SIX("6"),
-        SEVEN("7"),
-        EIGHT("8"),
-        NINE("9"),
-        TEN("T"),
-        JACK("J"),
-        QUEEN("Q"),
-        KING("K"),
-        ACE("A");
-
-        static final Comparator<Card> STD = Comparator.comparingInt(Enum::ordinal);
-
-        static final Comparator<Card> AS_JOKER = Comparator.comparingInt(
-                card -> card.equals(JACK) ? -1 : card.ordinal());
-
-        final String pip;
-
-        Card(final String pip) {
+        TWO('2'),
+        THREE('3'),
+        FOUR('4'),
+        FIVE('5'),
+        SIX('6'),
+        SEVEN('7'),
+        EIGHT('8'),
+        NINE('9'),
+        TEN('T'),
+        JACK('J'),
+        QUEEN('Q'),
+        KING('K'),
+        ACE('A');
+
+        static final Card[] VALUES = values();
+        static final int COUNT = VALUES.length;
+
+        final char pip;
+
+        Card(final char pip) {
             this.pip = pip;
         }
 
-        static Card from(final String pip) {
-            for (final Card card : values()) {
-                if (card.pip.equals(pip)) {
+        static Card from(final char pip) {
+            for (final Card card : VALUES) {
+                if (card.pip == pip) {
                     return card;
                 }
             }
@@ -267,37 +196,53 @@ public class Day07 {
 
         @Override
         public String toString() {
-            return this.pip;
+            return String.valueOf(this.pip);
         }
     }
 
-    // Score for a hand and how to evaluate it
+    // Score for a hand, weakest first
     enum Score {
-        HIGH((eval, hand) -> true),
-        PAIR(Evaluator::hasPair),
-        PAIRS(Evaluator::hasPairs),
-        THREE(Evaluator::hasThree),
-        FULL(Evaluator::hasFull),
-        FOUR(Evaluator::hasFour),
-        FIVE(Evaluator::hasFive),
+        HIGH,
+        PAIR,
+        PAIRS,
+        THREE,
+        FULL,
+        FOUR,
+        FIVE,
         ;
 
-        private final BiPredicate<Evaluator, Hand> doesApply;
-
-        Score(final BiPredicate<Evaluator, Hand> doesApply) {
-            this.doesApply = doesApply;
-        }
-
-        boolean applies(final Evaluator evaluator, final Hand hand) {
-            return this.doesApply.test(evaluator, hand);
-        }
+        static final Score[] VALUES = values();
+
+        // Score from the number of each Card in a hand - Jokers always do best joining the largest group
+        static Score from(final int[] counts, final Rules rules) {
+            final int jokers = rules == Rules.JOKERS ? counts[Card.JACK.ordinal()] : 0;
+            int first = 0;
+            int second = 0;
+            for (int card = 0; card < counts.length; card++) {
+                final int count = rules == Rules.JOKERS && card == Card.JACK.ordinal() ? 0 : counts[card];
+                if (count > first) {
+                    second = first;
+                    first = count;
+                }
+                else if (count > second) {
+                    second = count;
+                }
+            }
+            first += jokers;
 
-        static Score evaluate(final Evaluator part, final Hand hand) {
-            return Stream.of(values())
-                    .sorted(Comparator.<Score>comparingInt(Enum::ordinal).reversed())
-                    .filter(score -> score.applies(part, hand))
-                    .findFirst()
-                    .orElseThrow();
+            if (first == 5) {
+                return FIVE;
+            }
+            if (first == 4) {
+                return FOUR;
+            }
+            if (first == 3) {
+                return second == 2 ? FULL : THREE;
+            }
+            if (first == 2) {
+                return second == 2 ? PAIRS : PAIR;
+            }
+            return HIGH;
         }
     }
 }
@@ -1,15 +1,30 @@
 import util.InputUtil;
 import util.Pair;
 
-import java.util.Iterator;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 public class Day08 {
 
@@ -19,56 +34,150 @@ public class Day08 {
     }
 
     public static void main(final String[] args) {
-        final String input = InputUtil.file("day08");
+        final Network network = parse(InputUtil.file("day08"));
+
+        final Graph graph = Graph.compile(network.nodeMap, network.path);
+
+        System.out.println("Part 1: " + part1(graph));
+        System.out.println("Part 2: " + part2(graph));
+    }
+
+    static Network parse(final String input) {
         final InputUtil.Split split = InputUtil.splitHalf(input, "\n\n");
         final String path = split.left().trim();
         final Map<String, Node> nodeMap = split.right().trim().lines()
                 .map(Day08::parseNode)
                 .collect(Collectors.toMap(Node::key, Function.identity()));
+        return new Network(path, nodeMap);
+    }
+
+    public static long part1(final Graph graph) {
+        return graph.stepsUntil(graph.id("AAA"), graph.mark(key -> key.equals("ZZZ")));
+    }
 
-        part1(nodeMap, path);
-        part2(nodeMap, path);
+    public static long part2(final Graph graph) {
+        final boolean[] ends = graph.mark(key -> key.endsWith("Z"));
+        final List<Cycle> cycles = Arrays.stream(graph.ids(key -> key.endsWith("A")))
+                .mapToObj(start -> findCycle(graph, start, ends))
+                .toList();
+        return firstCommonHit(cycles);
     }
 
-    public static void part1(final Map<String, Node> nodeMap, final String path) {
-        final State state = new State("AAA", str -> str.equals("ZZZ"));
-        for (final String dir : new InfiniteIterator(path)) {
-            step(nodeMap, state, dir);
-            if (state.done()) {
-                break;
+    /**
+     * Part 2 by walking every ghost in parallel on the common ForkJoinPool
+     *
+     * @see #part2Simulated(Graph, long, ExecutorService)
+     */
+    static OptionalLong part2Simulated(final Graph graph, final long maxSteps) {
+        return part2Simulated(graph, maxSteps, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Part 2 by walking every ghost in parallel on {@code executor}. This is a cross-check of the cycle solver rather
+     * than a solver - walking 2^22 steps takes about 80 ms/op where {@link #part2} takes about 2 ms/op, and the real
+     * answer is millions of times further away than that
+     *
+     * @return the first step at which every ghost is on an end node, if there is one within {@code maxSteps}
+     */
+    static OptionalLong part2Simulated(final Graph graph, final long maxSteps, final ExecutorService executor) {
+        final MultiWalker walker = new MultiWalker(graph,
+                graph.ids(key -> key.endsWith("A")),
+                graph.mark(key -> key.endsWith("Z")),
+                executor);
+        return walker.firstCommonHit(maxSteps);
+    }
+
+    // Walk from start until a node is reached at the same instruction position twice, noting every end node on the way
+    static Cycle findCycle(final Graph graph, final int start, final boolean[] ends) {
+        // step at which each node and position was first visited, indexed by node * path length + position
+        final int[] seen = new int[Math.multiplyExact(graph.size(), graph.pathLength())];
+        Arrays.fill(seen, -1);
+        final LongStream.Builder hits = LongStream.builder();
+
+        int node = start;
+        int position = 0;
+        for (int step = 0; ; step++) {
+            final int visit = node * graph.pathLength() + position;
+            if (seen[visit] >= 0) {
+                return Cycle.from(seen[visit], step - seen[visit], hits.build().toArray());
             }
+            seen[visit] = step;
+            if (ends[node]) {
+                hits.add(step);
+            }
+            node = graph.next(node, position);
+            position = graph.nextPosition(position);
         }
-        System.out.println("Part 1: " + state.count);
     }
 
-    public static void part2(final Map<String, Node> nodeMap, final String path) {
-        final Predicate<String> ZENDER = str -> str.endsWith("Z");
-        final Set<State> states = nodeMap.keySet().stream()
-                .filter(key -> key.endsWith("A"))
-                .map(key -> new State(key, ZENDER))
-                .collect(Collectors.toSet());
-        final int numStates = states.size();
+    // First step, after at least one, at which every ghost is on an end node
+    static long firstCommonHit(final List<Cycle> cycles) {
+        long best = Long.MAX_VALUE;
 
-        int laps = 0;
-        boolean all_done;
-        for (final String dir : new InfiniteIterator(path)) {
-            all_done = true;
-            int count_done = 0;
-            for (final State state : states) {
-                step(nodeMap, state, dir);
-                all_done &= state.done();
-                if (state.done()) {
-                    count_done++;
+        // hits before a ghost reaches its cycle only happen once, so check each of them against every ghost
+        for (final Cycle cycle : cycles) {
+            for (final long hit : cycle.preHits) {
+                if (hit >= 1 && hit < best && cycles.stream().allMatch(c -> c.isHit(hit))) {
+                    best = hit;
                 }
             }
-            laps++;
-            System.out.printf("  Lap: %d | %d / %d completed%n", laps, count_done, numStates);
-            if (all_done) {
-                break;
+        }
+
+        // after that every ghost is on its cycle, so solve the congruences of the cycle hits
+        final long lowerBound = Math.max(1, cycles.stream().mapToLong(Cycle::entry).max().orElse(1));
+        best = Math.min(best, solveCycleHits(cycles, lowerBound));
+
+        if (best == Long.MAX_VALUE) {
+            throw new IllegalStateException("Ghosts never all finish together");
+        }
+        return best;
+    }
+
+    /**
+     * Least step of at least lowerBound that is a cycle hit of every ghost, or Long.MAX_VALUE if there is none. The
+     * ghosts are folded in one at a time by generalised CRT - the moduli need not be coprime - keeping the distinct
+     * residues, modulo the lcm of the periods so far, of the steps that every ghost so far hits. Hits that agree on
+     * the periods' shared factors merge rather than multiply out, so the set holds at most one residue per solution
+     * instead of one per combination of hits
+     */
+    private static long solveCycleHits(final List<Cycle> cycles, final long lowerBound) {
+        BigInteger modulus = BigInteger.ONE;
+        Set<BigInteger> residues = Set.of(BigInteger.ZERO);
+        for (final Cycle cycle : cycles) {
+            // x = r (mod modulus) and x = hit (mod period) hold together when gcd divides hit - r, and then
+            // x = r + modulus * k for k = (hit - r) / gcd * (modulus / gcd)^-1 (mod period / gcd)
+            final BigInteger period = BigInteger.valueOf(cycle.period);
+            final BigInteger gcd = modulus.gcd(period);
+            final BigInteger periodReduced = period.divide(gcd);
+            final BigInteger inverse = periodReduced.equals(BigInteger.ONE)
+                    ? BigInteger.ZERO
+                    : modulus.divide(gcd).modInverse(periodReduced);
+            final BigInteger lcm = modulus.multiply(periodReduced);
+
+            final Set<BigInteger> combined = new HashSet<>();
+            for (final BigInteger residue : residues) {
+                for (final long hit : cycle.cycleHits) {
+                    final BigInteger[] quotient = BigInteger.valueOf(hit).subtract(residue).divideAndRemainder(gcd);
+                    if (quotient[1].signum() == 0) {
+                        final BigInteger k = quotient[0].multiply(inverse).mod(periodReduced);
+                        combined.add(residue.add(modulus.multiply(k)).mod(lcm));
+                    }
+                }
+            }
+            if (combined.isEmpty()) {
+                return Long.MAX_VALUE;
             }
+            modulus = lcm;
+            residues = combined;
         }
 
-        System.out.println("Part 2: " + states.stream().findFirst().get().count);
+        // the least step at or above the bound in any of the residue classes
+        final BigInteger bound = BigInteger.valueOf(lowerBound);
+        long best = Long.MAX_VALUE;
+        for (final BigInteger residue : residues) {
+            best = Math.min(best, bound.add(residue.subtract(bound).mod(modulus)).longValueExact());
+        }
+        return best;
     }
 
     private static Node parseNode(final String line) {
@@ -83,67 +192,412 @@ public class Day08 {
         return new Node(matchResult.group(1), new Pair<>(matchResult.group(2), matchResult.group(3)));
     }
 
-    private static void step(final Map<String, Node> nodeMap,
-                             final State state,
-                             final String dir) {
-        final Node curNode = nodeMap.get(state.currentKey);
-        final String nextKey = nextKey(curNode, dir);
-        state.count++;
-        state.currentKey = nextKey;
-    }
-
-    private static String nextKey(final Node node, final String dir) {
-        return switch (dir) {
-            case "L" -> node.paths.left();
-            case "R" -> node.paths.right();
-            default -> throw new IllegalArgumentException("Bad dir: " + dir);
-        };
+    // the instruction path along with every node keyed by name
+    record Network(String path, Map<String, Node> nodeMap) {
     }
 
     record Node(String key, Pair<String, String> paths) {
     }
 
-    static class InfiniteIterator
-            implements Iterator<String>, Iterable<String> {
-        private final String path;
-        private volatile Iterator<String> itr;
+    /**
+     * A Network compiled for traversal. Node names are interned to dense ids, in name order, so that the edges out of
+     * every node are two int arrays indexed by id, and the path is a byte per instruction
+     */
+    static final class Graph {
+        static final byte LEFT = 0;
+        static final byte RIGHT = 1;
+
+        private final String[] names;
+        private final Map<String, Integer> ids;
+        private final int[] left;
+        private final int[] right;
+        private final byte[] path;
 
-        InfiniteIterator(final String path) {
+        private Graph(final String[] names,
+                      final Map<String, Integer> ids,
+                      final int[] left,
+                      final int[] right,
+                      final byte[] path) {
+            this.names = names;
+            this.ids = ids;
+            this.left = left;
+            this.right = right;
             this.path = path;
-            this.itr = InputUtil.splitStream(path, "").iterator();
         }
 
-        @Override
-        public Iterator<String> iterator() {
-            return this;
+        /**
+         * @return number of nodes
+         */
+        int size() {
+            return this.names.length;
+        }
+
+        int pathLength() {
+            return this.path.length;
+        }
+
+        int id(final String name) {
+            return idOf(this.ids, name);
+        }
+
+        String name(final int id) {
+            return this.names[id];
+        }
+
+        /**
+         * @return ids of the nodes whose names pass {@code predicate}, ascending
+         */
+        int[] ids(final Predicate<String> predicate) {
+            return IntStream.range(0, this.names.length).filter(id -> predicate.test(this.names[id])).toArray();
+        }
+
+        /**
+         * @return a flag for each node id, set if its name passes {@code predicate}
+         */
+        boolean[] mark(final Predicate<String> predicate) {
+            final boolean[] marked = new boolean[this.names.length];
+            for (int id = 0; id < marked.length; id++) {
+                marked[id] = predicate.test(this.names[id]);
+            }
+            return marked;
+        }
+
+        /**
+         * @return the node reached from {@code node} by the instruction at {@code position}
+         */
+        int next(final int node, final int position) {
+            return this.path[position] == LEFT ? this.left[node] : this.right[node];
+        }
+
+        int nextPosition(final int position) {
+            return position + 1 == this.path.length ? 0 : position + 1;
+        }
+
+        /**
+         * @return number of steps, at least one, from {@code start} to the first node flagged in {@code ends}
+         * @throws IllegalStateException if the walk never reaches one
+         */
+        long stepsUntil(final int start, final boolean[] ends) {
+            // every node and position has been visited once no end is found within this many steps
+            final long limit = (long) this.names.length * this.path.length;
+            int node = start;
+            int position = 0;
+            for (long step = 1; step <= limit; step++) {
+                node = next(node, position);
+                position = nextPosition(position);
+                if (ends[node]) {
+                    return step;
+                }
+            }
+            throw new IllegalStateException("No end reachable from " + this.names[start]);
+        }
+
+        static Graph compile(final Map<String, Node> nodeMap, final String path) {
+            final String[] names = nodeMap.keySet().stream().sorted().toArray(String[]::new);
+            final Map<String, Integer> ids = new HashMap<>(names.length * 4 / 3 + 1);
+            for (int id = 0; id < names.length; id++) {
+                ids.put(names[id], id);
+            }
+
+            final int[] left = new int[names.length];
+            final int[] right = new int[names.length];
+            for (int id = 0; id < names.length; id++) {
+                final Pair<String, String> paths = nodeMap.get(names[id]).paths;
+                left[id] = idOf(ids, paths.left());
+                right[id] = idOf(ids, paths.right());
+            }
+
+            final byte[] dirs = new byte[path.length()];
+            for (int i = 0; i < dirs.length; i++) {
+                dirs[i] = switch (path.charAt(i)) {
+                    case 'L' -> LEFT;
+                    case 'R' -> RIGHT;
+                    default -> throw new IllegalArgumentException("Bad dir: " + path.charAt(i));
+                };
+            }
+            if (dirs.length == 0) {
+                throw new IllegalArgumentException("Empty path");
+            }
+
+            return new Graph(names, ids, left, right, dirs);
+        }
+
+        private static int idOf(final Map<String, Integer> ids, final String name) {
+            final Integer id = ids.get(name);
+            if (id == null) {
+                throw new IllegalArgumentException("No such node: " + name);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Where walks are after whole passes of the path, by binary lifting. Level k holds, for every node, the node
+     * reached after 2^k passes from it, and the first step within those passes that lands on an end node. Any count
+     * of passes is then a walk down its set bits, costing O(log passes) rather than a step per instruction
+     */
+    static final class PassJumps {
+        private static final long NO_HIT = -1;
+
+        private final int pathLength;
+        private final int[][] nodes;
+        private final long[][] firstHits;
+
+        private PassJumps(final int pathLength, final int[][] nodes, final long[][] firstHits) {
+            this.pathLength = pathLength;
+            this.nodes = nodes;
+            this.firstHits = firstHits;
+        }
+
+        /**
+         * @return the node reached from {@code node} after {@code passes} passes of the path
+         */
+        int afterPasses(final int node, final long passes) {
+            checkPasses(passes);
+            int cur = node;
+            for (int level = 0; level < this.nodes.length; level++) {
+                if ((passes & (1L << level)) != 0) {
+                    cur = this.nodes[level][cur];
+                }
+            }
+            return cur;
+        }
+
+        /**
+         * @return the first step, at least one, within {@code passes} passes from {@code node} that lands on an end
+         * node, or -1 if none do
+         */
+        long firstHit(final int node, final long passes) {
+            checkPasses(passes);
+            int cur = node;
+            long offset = 0;
+            for (int level = 0; level < this.nodes.length; level++) {
+                if ((passes & (1L << level)) != 0) {
+                    if (this.firstHits[level][cur] != NO_HIT) {
+                        return offset + this.firstHits[level][cur];
+                    }
+                    offset += (long) this.pathLength << level;
+                    cur = this.nodes[level][cur];
+                }
+            }
+            return NO_HIT;
+        }
+
+        /**
+         * @return {@link #afterPasses(int, long)} for every node of {@code starts}, answered in parallel
+         */
+        int[] afterPasses(final int[] starts, final long passes) {
+            return IntStream.range(0, starts.length)
+                    .parallel()
+                    .map(i -> afterPasses(starts[i], passes))
+                    .toArray();
         }
 
-        @Override
-        public boolean hasNext() {
-            return true;
+        /**
+         * @return {@link #firstHit(int, long)} for every node of {@code starts}, answered in parallel
+         */
+        long[] firstHits(final int[] starts, final long passes) {
+            return IntStream.range(0, starts.length)
+                    .parallel()
+                    .mapToLong(i -> firstHit(starts[i], passes))
+                    .toArray();
         }
 
-        @Override
-        public String next() {
-            if (!this.itr.hasNext()) {
-                this.itr = InputUtil.splitStream(this.path, "").iterator();
+        private void checkPasses(final long passes) {
+            if (passes < 0 || (passes >>> this.nodes.length) != 0) {
+                throw new IllegalArgumentException("Bad passes: " + passes);
             }
-            return this.itr.next();
+        }
+
+        static PassJumps build(final Graph graph, final boolean[] ends) {
+            final int size = graph.size();
+            final int pathLength = graph.pathLength();
+
+            // as many levels as keep a step count within 2^levels passes inside a long
+            final int numLevels = Long.numberOfLeadingZeros(pathLength) - 1;
+            final int[][] nodes = new int[numLevels][];
+            final long[][] firstHits = new long[numLevels][];
+
+            // level 0 is a walk of one pass from every node
+            nodes[0] = new int[size];
+            firstHits[0] = new long[size];
+            IntStream.range(0, size).parallel().forEach(start -> {
+                int node = start;
+                long firstHit = NO_HIT;
+                for (int position = 0; position < pathLength; position++) {
+                    node = graph.next(node, position);
+                    if (firstHit == NO_HIT && ends[node]) {
+                        firstHit = position + 1;
+                    }
+                }
+                nodes[0][start] = node;
+                firstHits[0][start] = firstHit;
+            });
+
+            // 2^(k+1) passes are 2^k passes twice over
+            for (int level = 1; level < numLevels; level++) {
+                final int[] prevNodes = nodes[level - 1];
+                final long[] prevHits = firstHits[level - 1];
+                final long halfSteps = (long) pathLength << (level - 1);
+                nodes[level] = new int[size];
+                firstHits[level] = new long[size];
+                for (int node = 0; node < size; node++) {
+                    final int mid = prevNodes[node];
+                    nodes[level][node] = prevNodes[mid];
+                    firstHits[level][node] = prevHits[node] != NO_HIT
+                            ? prevHits[node]
+                            : prevHits[mid] == NO_HIT ? NO_HIT : halfSteps + prevHits[mid];
+                }
+            }
+
+            return new PassJumps(pathLength, nodes, firstHits);
         }
     }
 
-    static class State {
-        String currentKey;
-        int count;
-        final Predicate<String> endCondition;
+    /**
+     * Walks many start nodes at once, with each walker a task on an executor, in windows of a fixed number of steps.
+     * Every walker marks the steps of the window at which it is on an end node in its own bitset, then publishes
+     * them by ANDing them into a shared AtomicLongArray - no locks are taken, and once every walker has finished the
+     * window the bits left set are the steps that all of them agree on. Every run starts the walkers afresh, so a
+     * MultiWalker can be run again, but only one run at a time
+     */
+    static final class MultiWalker {
+        static final int WINDOW = 1 << 16;
+        private static final int WORDS = WINDOW / Long.SIZE;
 
-        State(final String currentKey, final Predicate<String> endCondition) {
-            this.currentKey = currentKey;
-            this.endCondition = endCondition;
+        private final Graph graph;
+        private final boolean[] ends;
+        private final ExecutorService executor;
+        private final List<Walker> walkers;
+        private final AtomicLongArray agreed = new AtomicLongArray(WORDS);
+
+        MultiWalker(final Graph graph, final int[] starts, final boolean[] ends, final ExecutorService executor) {
+            this.graph = graph;
+            this.ends = ends;
+            this.executor = executor;
+            this.walkers = Arrays.stream(starts).mapToObj(Walker::new).toList();
         }
 
-        boolean done() {
-            return this.endCondition.test(this.currentKey);
+        /**
+         * Walk until every walker is on an end node at the same step, without reporting progress
+         *
+         * @return the first such step, at least one, if there is one within {@code maxSteps}
+         */
+        OptionalLong firstCommonHit(final long maxSteps) {
+            return firstCommonHit(maxSteps, Duration.ofNanos(Long.MAX_VALUE), steps -> { });
+        }
+
+        /**
+         * Walk until every walker is on an end node at the same step, calling {@code progress} with the number of
+         * steps walked at most once per {@code reportEvery}
+         *
+         * @return the first such step, at least one, if there is one within {@code maxSteps}
+         */
+        OptionalLong firstCommonHit(final long maxSteps, final Duration reportEvery, final LongConsumer progress) {
+            this.walkers.forEach(Walker::reset);
+            long lastReport = System.nanoTime();
+            for (long base = 0; base < maxSteps; base += WINDOW) {
+                for (int word = 0; word < WORDS; word++) {
+                    this.agreed.set(word, -1L);
+                }
+                walkWindow();
+
+                for (int word = 0; word < WORDS; word++) {
+                    final long bits = this.agreed.get(word);
+                    if (bits != 0) {
+                        final long step = base + (long) word * Long.SIZE + Long.numberOfTrailingZeros(bits) + 1;
+                        return step <= maxSteps ? OptionalLong.of(step) : OptionalLong.empty();
+                    }
+                }
+
+                final long now = System.nanoTime();
+                if (now - lastReport >= reportEvery.toNanos()) {
+                    progress.accept(base + WINDOW);
+                    lastReport = now;
+                }
+            }
+            return OptionalLong.empty();
+        }
+
+        private void walkWindow() {
+            try {
+                for (final Future<Void> future : this.executor.invokeAll(this.walkers)) {
+                    future.get();
+                }
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (final ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        // A single start node, walked a window at a time
+        private class Walker
+                implements Callable<Void> {
+            private final long[] hits = new long[WORDS];
+            private final int start;
+            private int node;
+            private int position;
+
+            private Walker(final int start) {
+                this.start = start;
+                reset();
+            }
+
+            // back to the start node, at the start of the path
+            private void reset() {
+                this.node = this.start;
+                this.position = 0;
+            }
+
+            @Override
+            public Void call() {
+                final Graph graph = MultiWalker.this.graph;
+                final boolean[] ends = MultiWalker.this.ends;
+                Arrays.fill(this.hits, 0);
+                for (int step = 0; step < WINDOW; step++) {
+                    this.node = graph.next(this.node, this.position);
+                    this.position = graph.nextPosition(this.position);
+                    if (ends[this.node]) {
+                        this.hits[step >>> 6] |= 1L << step;
+                    }
+                }
+                for (int word = 0; word < WORDS; word++) {
+                    // no need to publish into a word that another walker has already ruled out
+                    if (MultiWalker.this.agreed.get(word) != 0) {
+                        MultiWalker.this.agreed.getAndAccumulate(word, this.hits[word], (a, b) -> a & b);
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The end nodes hit by a walk, which repeats every period steps from step entry on. Hits before entry are
+     * preHits and only happen once, while cycleHits are the steps within the first lap of the cycle
+     */
+    record Cycle(long entry, long period, long[] preHits, long[] cycleHits) {
+
+        boolean isHit(final long step) {
+            if (step < this.entry) {
+                return Arrays.binarySearch(this.preHits, step) >= 0;
+            }
+            return Arrays.binarySearch(this.cycleHits, this.entry + (step - this.entry) % this.period) >= 0;
+        }
+
+        // hits must be ascending
+        static Cycle from(final long entry, final long period, final long[] hits) {
+            int split = 0;
+            while (split < hits.length && hits[split] < entry) {
+                split++;
+            }
+            return new Cycle(entry, period,
+                    Arrays.copyOfRange(hits, 0, split),
+                    Arrays.copyOfRange(hits, split, hits.length));
         }
     }
 }
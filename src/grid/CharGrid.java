@@ -0,0 +1,196 @@
+package grid;
+
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * A read-only two dimensional grid of characters, typically the raw lines of a text-map puzzle.
+ * The line index correlates to the y-axis, and the character index within a line correlates to the x-axis.
+ * Lines do not need to be of equal length - cells past the end of a line are out of bounds
+ */
+public class CharGrid {
+
+    private final char[][] rows;
+    private final int width;
+
+    private CharGrid(final char[][] rows) {
+        this.rows = rows;
+        int width = 0;
+        for (final char[] row : rows) {
+            width = Math.max(width, row.length);
+        }
+        this.width = width;
+    }
+
+    /**
+     * @return length of the longest row
+     */
+    public int width() {
+        return this.width;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int height() {
+        return this.rows.length;
+    }
+
+    /**
+     * @return does {@code (x, y)} refer to a cell of this grid
+     */
+    public boolean inBounds(final int x, final int y) {
+        return y >= 0 && y < this.rows.length && x >= 0 && x < this.rows[y].length;
+    }
+
+    /**
+     * @return the character at {@code (x, y)}
+     * @throws IndexOutOfBoundsException if {@code (x, y)} is not {@link #inBounds(int, int)}
+     */
+    public char charAt(final int x, final int y) {
+        return this.rows[y][x];
+    }
+
+    /**
+     * @return the character at {@code (x, y)}, or {@code outside} if the point is not {@link #inBounds(int, int)}
+     */
+    public char charAtOrDefault(final int x, final int y, final char outside) {
+        return inBounds(x, y) ? this.rows[y][x] : outside;
+    }
+
+    /**
+     * @return a read-only view of row {@code y} that shares this grid's storage
+     */
+    public CharSequence row(final int y) {
+        return CharBuffer.wrap(this.rows[y]).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a read-only view of row {@code y} from {@code fromX} inclusive to {@code toX} exclusive
+     */
+    public CharSequence row(final int y, final int fromX, final int toX) {
+        return CharBuffer.wrap(this.rows[y], fromX, toX - fromX).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the classification of the character at {@code (x, y)}
+     */
+    public Cell classify(final int x, final int y) {
+        return Cell.of(this.rows[y][x]);
+    }
+
+    public boolean isDigit(final int x, final int y) {
+        return inBounds(x, y) && Cell.of(this.rows[y][x]) == Cell.DIGIT;
+    }
+
+    public boolean isSymbol(final int x, final int y) {
+        return inBounds(x, y) && Cell.of(this.rows[y][x]) == Cell.SYMBOL;
+    }
+
+    public boolean isBlank(final int x, final int y) {
+        return inBounds(x, y) && Cell.of(this.rows[y][x]) == Cell.BLANK;
+    }
+
+    /**
+     * Visit every cell of the given classification in row-major order
+     */
+    public void forEach(final Cell cell, final IntPointConsumer consumer) {
+        for (int y = 0; y < this.rows.length; y++) {
+            final char[] row = this.rows[y];
+            for (int x = 0; x < row.length; x++) {
+                if (Cell.of(row[x]) == cell) {
+                    consumer.accept(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of cells of the given classification
+     */
+    public int count(final Cell cell) {
+        int count = 0;
+        for (final char[] row : this.rows) {
+            for (final char c : row) {
+                if (Cell.of(c) == cell) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return a dense TwoDimIntGrid holding every cell of this grid
+     */
+    public TwoDimIntGrid<Character> toGrid() {
+        final TwoDimIntGrid<Character> grid = TwoDimIntGrid.dense(0, 0,
+                Math.max(this.width, 1) - 1,
+                Math.max(this.rows.length, 1) - 1);
+        for (int y = 0; y < this.rows.length; y++) {
+            final char[] row = this.rows[y];
+            for (int x = 0; x < row.length; x++) {
+                grid.put(x, y, row[x]);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Build a CharGrid from the lines of an input, such as the output of {@link util.InputUtil#lines(String)}
+     */
+    public static CharGrid of(final List<String> lines) {
+        final char[][] rows = new char[lines.size()][];
+        for (int y = 0; y < rows.length; y++) {
+            rows[y] = lines.get(y).toCharArray();
+        }
+        return new CharGrid(rows);
+    }
+
+    /**
+     * Build a CharGrid from a whole input, such as the output of {@link util.InputUtil#file(String)}
+     */
+    public static CharGrid of(final String input) {
+        return of(input.lines().toList());
+    }
+
+    /**
+     * Build a CharGrid from the cells of a grid between its min and max range points.
+     * Cells with no mapping are filled with {@code blank}
+     */
+    public static CharGrid from(final TwoDimIntGrid<Character> grid, final char blank) {
+        final int minX = grid.getMinX();
+        final int minY = grid.getMinY();
+        final char[][] rows = new char[grid.getMaxY() - minY + 1][grid.getMaxX() - minX + 1];
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length; x++) {
+                final Character c = grid.get(x + minX, y + minY);
+                rows[y][x] = c == null ? blank : c;
+            }
+        }
+        return new CharGrid(rows);
+    }
+
+    /**
+     * Broad classification of a text-map cell
+     */
+    public enum Cell {
+        DIGIT,
+        SYMBOL,
+        BLANK;
+
+        private static final Cell[] ASCII = new Cell[128];
+
+        static {
+            for (char c = 0; c < ASCII.length; c++) {
+                ASCII[c] = c >= '0' && c <= '9'
+                        ? DIGIT
+                        : c == '.' || Character.isWhitespace(c) ? BLANK : SYMBOL;
+            }
+        }
+
+        public static Cell of(final char c) {
+            return c < ASCII.length ? ASCII[c] : SYMBOL;
+        }
+    }
+}
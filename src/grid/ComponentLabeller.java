@@ -0,0 +1,277 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Labels the connected components of the cells of a two dimensional space that pass some predicate.
+ * <p>
+ * Rows are split into bands that are scanned and joined in parallel, using a union-find over the cell indices of
+ * the horizontal runs in each band. Only the rows where two bands meet are joined afterwards on a single thread.
+ * Components are numbered from zero in the row-major order of their first cell, so labelling is deterministic
+ */
+public class ComponentLabeller {
+
+    private static final int UNLABELLED = -1;
+
+    private ComponentLabeller() {
+    }
+
+    /**
+     * Label the components of the Nodes in {@code grid} that pass {@code predicate}
+     */
+    public static <N> Components label(final TwoDimIntGrid<N> grid,
+                                       final Predicate<? super N> predicate,
+                                       final Connectivity connectivity) {
+        if (grid.isEmpty()) {
+            return new Components(0, 0, 0, 0, new int[0], 0);
+        }
+        return label(grid.getMinX(), grid.getMinY(), grid.getMaxX(), grid.getMaxY(),
+                (x, y) -> grid.containsKey(x, y) && predicate.test(grid.get(x, y)),
+                connectivity);
+    }
+
+    /**
+     * Label the components of the cells of {@code chars} of the given classification
+     */
+    public static Components label(final CharGrid chars,
+                                   final CharGrid.Cell cell,
+                                   final Connectivity connectivity) {
+        if (chars.height() == 0 || chars.width() == 0) {
+            return new Components(0, 0, 0, 0, new int[0], 0);
+        }
+        return label(0, 0, chars.width() - 1, chars.height() - 1,
+                (x, y) -> chars.inBounds(x, y) && chars.classify(x, y) == cell,
+                connectivity);
+    }
+
+    /**
+     * Label the components of the cells within the inclusive bounds given that pass {@code covered}.
+     * {@code covered} may be called from several threads at once
+     */
+    public static Components label(final int minX, final int minY, final int maxX, final int maxY,
+                                   final IntPointPredicate covered,
+                                   final Connectivity connectivity) {
+        if (maxX < minX || maxY < minY) {
+            throw new IllegalArgumentException("Bad bounds: (%d, %d) to (%d, %d)".formatted(minX, minY, maxX, maxY));
+        }
+        final int width = Math.toIntExact((long) maxX - minX + 1);
+        final int height = Math.toIntExact((long) maxY - minY + 1);
+        final int[] labels = new int[Math.multiplyExact(width, height)];
+        final int[] parent = new int[labels.length];
+
+        final int numBands = Math.min(height, Runtime.getRuntime().availableProcessors() * 4);
+        final int bandHeight = (height + numBands - 1) / numBands;
+
+        // Label runs and join rows within each band - bands only ever touch their own cells
+        IntStream.range(0, numBands)
+                .parallel()
+                .forEach(band -> {
+                    final int fromRow = band * bandHeight;
+                    final int toRow = Math.min(height, fromRow + bandHeight);
+                    for (int row = fromRow; row < toRow; row++) {
+                        labelRuns(minX, minY, width, row, covered, labels, parent);
+                        if (row > fromRow && connectivity != Connectivity.HORIZONTAL) {
+                            joinRows(width, row, connectivity, labels, parent);
+                        }
+                    }
+                });
+
+        // Join the first row of every band to the last row of the band before it
+        if (connectivity != Connectivity.HORIZONTAL) {
+            for (int row = bandHeight; row < height; row += bandHeight) {
+                joinRows(width, row, connectivity, labels, parent);
+            }
+        }
+
+        // The root of every component is its first cell in row-major order, so it is always relabelled with its
+        // component id before any other cell of the component needs that id
+        int count = 0;
+        for (int idx = 0; idx < labels.length; idx++) {
+            if (labels[idx] == UNLABELLED) {
+                continue;
+            }
+            final int root = find(parent, labels[idx]);
+            labels[idx] = root == idx ? count++ : labels[root];
+        }
+
+        return new Components(minX, minY, width, height, labels, count);
+    }
+
+    // Give every cell of each horizontal run in a row the index of the run's first cell
+    private static void labelRuns(final int minX, final int minY, final int width, final int row,
+                                  final IntPointPredicate covered,
+                                  final int[] labels,
+                                  final int[] parent) {
+        final int rowStart = row * width;
+        int runStart = UNLABELLED;
+        for (int col = 0; col < width; col++) {
+            final int idx = rowStart + col;
+            if (covered.test(minX + col, minY + row)) {
+                if (runStart == UNLABELLED) {
+                    runStart = idx;
+                    parent[idx] = idx;
+                }
+                labels[idx] = runStart;
+            }
+            else {
+                labels[idx] = UNLABELLED;
+                runStart = UNLABELLED;
+            }
+        }
+    }
+
+    // Union every labelled cell of a row with its labelled neighbours in the row above
+    private static void joinRows(final int width, final int row,
+                                 final Connectivity connectivity,
+                                 final int[] labels,
+                                 final int[] parent) {
+        final int rowStart = row * width;
+        final int aboveStart = rowStart - width;
+        final int reach = connectivity == Connectivity.ORTHOGONAL ? 1 : 0;
+        for (int col = 0; col < width; col++) {
+            final int label = labels[rowStart + col];
+            if (label == UNLABELLED) {
+                continue;
+            }
+            for (int aboveCol = Math.max(0, col - reach); aboveCol <= Math.min(width - 1, col + reach); aboveCol++) {
+                final int aboveLabel = labels[aboveStart + aboveCol];
+                if (aboveLabel != UNLABELLED) {
+                    union(parent, label, aboveLabel);
+                }
+            }
+        }
+    }
+
+    // Link the larger root under the smaller one so the root stays the first cell of its component
+    private static void union(final int[] parent, final int a, final int b) {
+        final int rootA = find(parent, a);
+        final int rootB = find(parent, b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        }
+        else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    // Find with path halving
+    private static int find(final int[] parent, final int idx) {
+        int cur = idx;
+        while (parent[cur] != cur) {
+            parent[cur] = parent[parent[cur]];
+            cur = parent[cur];
+        }
+        return cur;
+    }
+
+    /**
+     * Which neighbouring cells join into the same component
+     */
+    public enum Connectivity {
+        // only left and right neighbours, so components are runs within a single row
+        HORIZONTAL,
+        // neighbours that are cardinal to a cell
+        CARDINAL,
+        // neighbours that are orthogonal to a cell, including diagonals
+        ORTHOGONAL
+    }
+
+    /**
+     * Result of a labelling - every labelled cell carries the id of its component, from zero to {@link #count()}
+     */
+    public static class Components {
+        private final int minX, minY, width, height;
+        private final int[] labels;
+        private final int count;
+
+        private Components(final int minX, final int minY, final int width, final int height,
+                           final int[] labels,
+                           final int count) {
+            this.minX = minX;
+            this.minY = minY;
+            this.width = width;
+            this.height = height;
+            this.labels = labels;
+            this.count = count;
+        }
+
+        /**
+         * @return number of components
+         */
+        public int count() {
+            return this.count;
+        }
+
+        /**
+         * @return id of the component at {@code (x, y)}, or -1 if that cell is not part of one
+         */
+        public int labelAt(final int x, final int y) {
+            final long col = (long) x - this.minX;
+            final long row = (long) y - this.minY;
+            if (col < 0 || col >= this.width || row < 0 || row >= this.height) {
+                return UNLABELLED;
+            }
+            return this.labels[(int) row * this.width + (int) col];
+        }
+
+        /**
+         * @return number of cells in each component, indexed by component id
+         */
+        public int[] sizes() {
+            final int[] sizes = new int[this.count];
+            for (final int label : this.labels) {
+                if (label != UNLABELLED) {
+                    sizes[label]++;
+                }
+            }
+            return sizes;
+        }
+
+        /**
+         * Visit every labelled cell in row-major order
+         */
+        public void forEachCell(final LabelledCellConsumer consumer) {
+            for (int idx = 0; idx < this.labels.length; idx++) {
+                if (this.labels[idx] != UNLABELLED) {
+                    consumer.accept(this.minX + idx % this.width, this.minY + idx / this.width, this.labels[idx]);
+                }
+            }
+        }
+
+        /**
+         * @return the Points of each component, indexed by component id
+         */
+        public List<Set<TwoDimIntPoint>> pointSets() {
+            final int[] sizes = sizes();
+            final List<Set<TwoDimIntPoint>> sets = new ArrayList<>(this.count);
+            for (int label = 0; label < this.count; label++) {
+                sets.add(new HashSet<>(sizes[label] * 4 / 3 + 1));
+            }
+            forEachCell((x, y, label) -> sets.get(label).add(new TwoDimIntPoint(x, y)));
+            return sets;
+        }
+
+        /**
+         * @return a RegionIndex with a region for every component, which shares its ids with this labelling
+         */
+        public RegionIndex<Set<TwoDimIntPoint>> toRegionIndex() {
+            return new RegionIndex<>(this.minX, this.minY, this.width, this.height, this.labels, pointSets());
+        }
+
+        @Override
+        public String toString() {
+            return "Components[count=%d, sizes=%s]".formatted(this.count, Arrays.toString(sizes()));
+        }
+    }
+
+    @FunctionalInterface
+    public interface LabelledCellConsumer {
+        void accept(int x, int y, int label);
+    }
+}
@@ -0,0 +1,284 @@
+package grid;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A TwoDimIntMap backed by a single flat array covering the bounding box of every Point put so far.
+ * Cell {@code (x, y)} lives at index {@code (y - minY) * width + (x - minX)}, and the box grows whenever
+ * a put lands outside of it. Iteration happens in row-major order, which matches {@link TwoDimIntPoint#compareTo}
+ *
+ * @param <N> type of Node
+ */
+class DenseTwoDimIntMap<N>
+        extends AbstractMap<TwoDimIntPoint, N>
+        implements TwoDimIntMap<N> {
+
+    // Marks a present cell that maps to null, so that a null slot can mean "absent"
+    private static final Object NULL_NODE = new Object();
+
+    private int minX, minY, width, height;
+    private Object[] cells;
+    private int size;
+    private int modCount;
+
+    DenseTwoDimIntMap() {
+        this.cells = new Object[0];
+    }
+
+    DenseTwoDimIntMap(final int minX, final int minY, final int maxX, final int maxY) {
+        if (maxX < minX || maxY < minY) {
+            throw new IllegalArgumentException("Bad bounds: (%d, %d) to (%d, %d)".formatted(minX, minY, maxX, maxY));
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.width = maxX - minX + 1;
+        this.height = maxY - minY + 1;
+        this.cells = new Object[Math.multiplyExact(this.width, this.height)];
+    }
+
+    @Override
+    public N get(final int x, final int y) {
+        final int idx = indexOf(x, y);
+        return idx < 0 ? null : unmask(this.cells[idx]);
+    }
+
+    @Override
+    public N put(final int x, final int y, final N value) {
+        int idx = indexOf(x, y);
+        if (idx < 0) {
+            growToFit(x, y);
+            idx = indexOf(x, y);
+        }
+        final Object old = this.cells[idx];
+        this.cells[idx] = value == null ? NULL_NODE : value;
+        if (old == null) {
+            this.size++;
+            this.modCount++;
+        }
+        return unmask(old);
+    }
+
+    @Override
+    public boolean containsKey(final int x, final int y) {
+        final int idx = indexOf(x, y);
+        return idx >= 0 && this.cells[idx] != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof final TwoDimIntPoint point && containsKey(point.x(), point.y());
+    }
+
+    @Override
+    public N get(final Object key) {
+        return key instanceof final TwoDimIntPoint point ? get(point.x(), point.y()) : null;
+    }
+
+    @Override
+    public N put(final TwoDimIntPoint key, final N value) {
+        return put(key.x(), key.y(), value);
+    }
+
+    @Override
+    public N remove(final Object key) {
+        if (!(key instanceof final TwoDimIntPoint point)) {
+            return null;
+        }
+        final int idx = indexOf(point.x(), point.y());
+        return idx < 0 ? null : removeAt(idx);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.cells, null);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public Set<Entry<TwoDimIntPoint, N>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<TwoDimIntPoint, N>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return DenseTwoDimIntMap.this.size;
+            }
+
+            @Override
+            public void clear() {
+                DenseTwoDimIntMap.this.clear();
+            }
+        };
+    }
+
+    // -1 for any coordinate outside of the current bounding box
+    private int indexOf(final int x, final int y) {
+        final long dx = (long) x - this.minX;
+        final long dy = (long) y - this.minY;
+        if (dx < 0 || dx >= this.width || dy < 0 || dy >= this.height) {
+            return -1;
+        }
+        return (int) dy * this.width + (int) dx;
+    }
+
+    private N removeAt(final int idx) {
+        final Object old = this.cells[idx];
+        if (old != null) {
+            this.cells[idx] = null;
+            this.size--;
+            this.modCount++;
+        }
+        return unmask(old);
+    }
+
+    // Grow the box to include (x, y), leaving slack on every side that had to grow so repeated puts amortize
+    private void growToFit(final int x, final int y) {
+        if (this.width == 0) {
+            this.minX = x;
+            this.minY = y;
+            this.width = 1;
+            this.height = 1;
+            this.cells = new Object[1];
+            return;
+        }
+
+        final long maxX = (long) this.minX + this.width - 1;
+        final long maxY = (long) this.minY + this.height - 1;
+        final long newMinX = x < this.minX ? Math.max(Integer.MIN_VALUE, (long) x - this.width / 2) : this.minX;
+        final long newMaxX = x > maxX ? Math.min(Integer.MAX_VALUE, (long) x + this.width / 2) : maxX;
+        final long newMinY = y < this.minY ? Math.max(Integer.MIN_VALUE, (long) y - this.height / 2) : this.minY;
+        final long newMaxY = y > maxY ? Math.min(Integer.MAX_VALUE, (long) y + this.height / 2) : maxY;
+
+        final int newWidth = Math.toIntExact(newMaxX - newMinX + 1);
+        final int newHeight = Math.toIntExact(newMaxY - newMinY + 1);
+        final Object[] newCells = new Object[Math.multiplyExact(newWidth, newHeight)];
+
+        final int offsetX = (int) (this.minX - newMinX);
+        final int offsetY = (int) (this.minY - newMinY);
+        for (int row = 0; row < this.height; row++) {
+            System.arraycopy(this.cells, row * this.width,
+                    newCells, (row + offsetY) * newWidth + offsetX,
+                    this.width);
+        }
+
+        this.minX = (int) newMinX;
+        this.minY = (int) newMinY;
+        this.width = newWidth;
+        this.height = newHeight;
+        this.cells = newCells;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <N> N unmask(final Object cell) {
+        return cell == NULL_NODE ? null : (N) cell;
+    }
+
+    private class EntryIterator
+            implements Iterator<Entry<TwoDimIntPoint, N>> {
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = DenseTwoDimIntMap.this.modCount;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < DenseTwoDimIntMap.this.cells.length;
+        }
+
+        @Override
+        public Entry<TwoDimIntPoint, N> next() {
+            if (DenseTwoDimIntMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next;
+            this.next = advance(this.next + 1);
+            return new DenseEntry(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (DenseTwoDimIntMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(this.last);
+            this.last = -1;
+            this.expectedModCount = DenseTwoDimIntMap.this.modCount;
+        }
+
+        private int advance(final int from) {
+            final Object[] cells = DenseTwoDimIntMap.this.cells;
+            int idx = from;
+            while (idx < cells.length && cells[idx] == null) {
+                idx++;
+            }
+            return idx;
+        }
+    }
+
+    // A live view of a single cell
+    private class DenseEntry
+            implements Entry<TwoDimIntPoint, N> {
+        private final int idx;
+        private final TwoDimIntPoint key;
+
+        private DenseEntry(final int idx) {
+            this.idx = idx;
+            this.key = new TwoDimIntPoint(
+                    DenseTwoDimIntMap.this.minX + idx % DenseTwoDimIntMap.this.width,
+                    DenseTwoDimIntMap.this.minY + idx / DenseTwoDimIntMap.this.width);
+        }
+
+        @Override
+        public TwoDimIntPoint getKey() {
+            return this.key;
+        }
+
+        @Override
+        public N getValue() {
+            return unmask(DenseTwoDimIntMap.this.cells[this.idx]);
+        }
+
+        @Override
+        public N setValue(final N value) {
+            if (DenseTwoDimIntMap.this.cells[this.idx] == null) {
+                throw new IllegalStateException("Entry removed: " + this.key);
+            }
+            final N old = getValue();
+            DenseTwoDimIntMap.this.cells[this.idx] = value == null ? NULL_NODE : value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof final Entry<?, ?> that
+                    && this.key.equals(that.getKey())
+                    && Objects.equals(getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+}
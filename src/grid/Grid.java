@@ -2,6 +2,7 @@ package grid;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Structure of abstract Points referring to abstract Nodes in an infinite space
@@ -57,4 +58,15 @@ public interface Grid<T, P extends Point<T> & Comparable<P>, N>
     default Optional<N> maybeGet(final P point) {
         return Optional.ofNullable(get(point));
     }
+
+    /**
+     * Visit every mapped Point that is {@link Point#isCardinal(Point) cardinal} to {@code point}, along with its Node
+     */
+    void forEachCardinalNeighbour(P point, BiConsumer<? super P, ? super N> consumer);
+
+    /**
+     * Visit every mapped Point that is {@link Point#isOrthogonal(Point) orthogonal} to {@code point}, along with its
+     * Node. The point itself is not visited
+     */
+    void forEachOrthogonalNeighbour(P point, BiConsumer<? super P, ? super N> consumer);
 }
@@ -0,0 +1,10 @@
+package grid;
+
+/**
+ * Receives a two dimensional integer coordinate without it being boxed into a Point
+ */
+@FunctionalInterface
+public interface IntPointConsumer {
+
+    void accept(int x, int y);
+}
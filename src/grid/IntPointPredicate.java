@@ -0,0 +1,10 @@
+package grid;
+
+/**
+ * Tests a two dimensional integer coordinate without it being boxed into a Point
+ */
+@FunctionalInterface
+public interface IntPointPredicate {
+
+    boolean test(int x, int y);
+}
@@ -0,0 +1,325 @@
+package grid;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An open addressing Map whose keys are stored packed into a single {@code long}. Lookups by packed key
+ * neither hash an Object nor allocate, and there are no per-entry nodes - just one {@code long[]} of keys and
+ * one {@code Object[]} of values probed linearly. Removals leave tombstones that are cleaned up on resize
+ *
+ * @param <K> type of the unpacked key
+ * @param <V> type of value
+ */
+abstract class PackedKeyMap<K, V>
+        extends AbstractMap<K, V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    // Marks a present slot that maps to null, so that a null slot can mean "empty"
+    private static final Object NULL_VALUE = new Object();
+
+    // Marks a removed slot that probes must walk past
+    private static final Object TOMBSTONE = new Object();
+
+    private long[] keys;
+    private Object[] values;
+    private int shift;
+    private int size;
+    private int used;
+    private int modCount;
+
+    protected PackedKeyMap() {
+        this(MIN_CAPACITY);
+    }
+
+    protected PackedKeyMap(final int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @return the packed form of {@code key}
+     * @throws IllegalArgumentException if the key cannot be packed
+     */
+    protected abstract long pack(K key);
+
+    /**
+     * @return is {@code key} a K that {@link #pack(Object)} accepts
+     */
+    protected abstract boolean isPackable(Object key);
+
+    /**
+     * @return the key that {@code packed} was made from
+     */
+    protected abstract K unpack(long packed);
+
+    protected final V getPacked(final long key) {
+        final int slot = find(key);
+        return slot < 0 ? null : unmask(this.values[slot]);
+    }
+
+    protected final boolean containsPacked(final long key) {
+        return find(key) >= 0;
+    }
+
+    protected final V putPacked(final long key, final V value) {
+        final Object masked = value == null ? NULL_VALUE : value;
+        final int mask = this.keys.length - 1;
+        int tombstone = -1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            final Object cur = this.values[slot];
+            if (cur == null) {
+                final int target = tombstone >= 0 ? tombstone : slot;
+                this.keys[target] = key;
+                this.values[target] = masked;
+                this.size++;
+                this.modCount++;
+                if (tombstone < 0 && ++this.used * 4 >= this.keys.length * 3) {
+                    rehash(this.size * 4 >= this.keys.length ? this.keys.length * 2 : this.keys.length);
+                }
+                return null;
+            }
+            if (cur == TOMBSTONE) {
+                if (tombstone < 0) {
+                    tombstone = slot;
+                }
+            }
+            else if (this.keys[slot] == key) {
+                this.values[slot] = masked;
+                return unmask(cur);
+            }
+        }
+    }
+
+    protected final V removePacked(final long key) {
+        final int slot = find(key);
+        return slot < 0 ? null : removeSlot(slot);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return isPackable(key) && containsPacked(pack(castKey(key)));
+    }
+
+    @Override
+    public V get(final Object key) {
+        return isPackable(key) ? getPacked(pack(castKey(key))) : null;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        return putPacked(pack(key), value);
+    }
+
+    @Override
+    public V remove(final Object key) {
+        return isPackable(key) ? removePacked(pack(castKey(key))) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+        this.used = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PackedKeyMap.this.size;
+            }
+
+            @Override
+            public void clear() {
+                PackedKeyMap.this.clear();
+            }
+        };
+    }
+
+    // slot of key, or -1 if absent
+    private int find(final long key) {
+        final int mask = this.keys.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            final Object cur = this.values[slot];
+            if (cur == null) {
+                return -1;
+            }
+            if (cur != TOMBSTONE && this.keys[slot] == key) {
+                return slot;
+            }
+        }
+    }
+
+    // Fibonacci hashing spreads packed coordinates, whose entropy sits in both halves of the long
+    private int home(final long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);
+    }
+
+    private V removeSlot(final int slot) {
+        final Object old = this.values[slot];
+        this.values[slot] = TOMBSTONE;
+        this.size--;
+        this.modCount++;
+        return unmask(old);
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.shift = Long.numberOfLeadingZeros(capacity - 1);
+        this.used = 0;
+    }
+
+    // Rebuild into a table of the given capacity, dropping tombstones on the way
+    private void rehash(final int capacity) {
+        final long[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final Object value = oldValues[i];
+            if (value == null || value == TOMBSTONE) {
+                continue;
+            }
+            int slot = home(oldKeys[i]);
+            while (this.values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = value;
+            this.used++;
+        }
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        final long needed = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K castKey(final Object key) {
+        return (K) key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmask(final Object value) {
+        return value == NULL_VALUE ? null : (V) value;
+    }
+
+    private class EntryIterator
+            implements Iterator<Entry<K, V>> {
+        private final long[] keys = PackedKeyMap.this.keys;
+        private final Object[] values = PackedKeyMap.this.values;
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = PackedKeyMap.this.modCount;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.values.length;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (PackedKeyMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next;
+            this.next = advance(this.next + 1);
+            return new PackedEntry(this.last, this.keys[this.last]);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (PackedKeyMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(this.last);
+            this.last = -1;
+            this.expectedModCount = PackedKeyMap.this.modCount;
+        }
+
+        private int advance(final int from) {
+            int slot = from;
+            while (slot < this.values.length && (this.values[slot] == null || this.values[slot] == TOMBSTONE)) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+
+    // A live view of a single slot
+    private class PackedEntry
+            implements Entry<K, V> {
+        private final int slot;
+        private final long packed;
+        private final K key;
+
+        private PackedEntry(final int slot, final long packed) {
+            this.slot = slot;
+            this.packed = packed;
+            this.key = unpack(packed);
+        }
+
+        @Override
+        public K getKey() {
+            return this.key;
+        }
+
+        @Override
+        public V getValue() {
+            return unmask(PackedKeyMap.this.values[this.slot]);
+        }
+
+        @Override
+        public V setValue(final V value) {
+            final Object cur = PackedKeyMap.this.values[this.slot];
+            if (cur == null || cur == TOMBSTONE || PackedKeyMap.this.keys[this.slot] != this.packed) {
+                throw new IllegalStateException("Entry removed: " + this.key);
+            }
+            final V old = getValue();
+            PackedKeyMap.this.values[this.slot] = value == null ? NULL_VALUE : value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof final Entry<?, ?> that
+                    && Objects.equals(this.key, that.getKey())
+                    && Objects.equals(getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.key) ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package grid;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Index from every cell covered by a region back to that region, where a region is any labelled set of Points within
+ * a two dimensional space. Regions are numbered from zero, and every cell within the bounds of the regions holds the
+ * id of the region covering it in a flat {@code int[]}. Answers "which regions touch this cell" by reading the cell
+ * and its neighbours only, so a query costs the same however many regions there are, and does not allocate
+ *
+ * @param <R> type of region label
+ */
+public class RegionIndex<R> {
+
+    /**
+     * Id of a cell that no region covers
+     */
+    public static final int NO_REGION = -1;
+
+    /**
+     * Most distinct regions that can touch a cell - its own and one per orthogonal neighbour
+     */
+    public static final int MAX_ADJACENT = 9;
+
+    private final int minX, minY, width, height;
+    private final int[] ids;
+    private final List<R> regions;
+
+    RegionIndex(final int minX, final int minY, final int width, final int height,
+                final int[] ids,
+                final List<R> regions) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.ids = ids;
+        this.regions = regions;
+    }
+
+    /**
+     * @return every region in the index, indexed by region id
+     */
+    public List<R> regions() {
+        return this.regions;
+    }
+
+    /**
+     * @return the region with id {@code id}
+     */
+    public R region(final int id) {
+        return this.regions.get(id);
+    }
+
+    /**
+     * @return id of the region covering {@code (x, y)}, or {@link #NO_REGION}
+     */
+    public int regionId(final int x, final int y) {
+        final long col = (long) x - this.minX;
+        final long row = (long) y - this.minY;
+        if (col < 0 || col >= this.width || row < 0 || row >= this.height) {
+            return NO_REGION;
+        }
+        return this.ids[(int) row * this.width + (int) col];
+    }
+
+    public int regionId(final TwoDimIntPoint point) {
+        return regionId(point.x(), point.y());
+    }
+
+    /**
+     * @return is {@code point} part of any region
+     */
+    public boolean isCovered(final TwoDimIntPoint point) {
+        return regionId(point) != NO_REGION;
+    }
+
+    /**
+     * @return the region covering {@code point}, if any
+     */
+    public Optional<R> regionAt(final TwoDimIntPoint point) {
+        final int id = regionId(point);
+        return id == NO_REGION ? Optional.empty() : Optional.of(this.regions.get(id));
+    }
+
+    /**
+     * Find the distinct regions covering {@code (x, y)} or any cell orthogonal to it
+     *
+     * @param found receives the ids of the regions, so needs room for {@link #MAX_ADJACENT}
+     * @return number of ids written to {@code found}
+     */
+    public int adjacentRegions(final int x, final int y, final int[] found) {
+        return neighbourRegions(x, y, true, found);
+    }
+
+    /**
+     * Find the distinct regions covering {@code (x, y)} or any cell cardinal to it
+     *
+     * @param found receives the ids of the regions, so needs room for {@link #MAX_ADJACENT}
+     * @return number of ids written to {@code found}
+     */
+    public int cardinalRegions(final int x, final int y, final int[] found) {
+        return neighbourRegions(x, y, false, found);
+    }
+
+    private int neighbourRegions(final int x, final int y, final boolean diagonals, final int[] found) {
+        int count = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (!diagonals && dx != 0 && dy != 0) {
+                    continue;
+                }
+                final int id = regionId(x + dx, y + dy);
+                if (id != NO_REGION && !contains(found, count, id)) {
+                    found[count++] = id;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean contains(final int[] ids, final int count, final int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Index regions that are already known, such as numbers read out of a schematic. Regions take their ids from
+     * their order in {@code regions}
+     *
+     * @param pointsOf the Points covered by a region - regions must not overlap
+     */
+    public static <R> RegionIndex<R> of(final Collection<R> regions,
+                                        final Function<? super R, ? extends Collection<TwoDimIntPoint>> pointsOf) {
+        final List<R> byId = List.copyOf(regions);
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (final R region : byId) {
+            for (final TwoDimIntPoint point : pointsOf.apply(region)) {
+                minX = Math.min(minX, point.x());
+                minY = Math.min(minY, point.y());
+                maxX = Math.max(maxX, point.x());
+                maxY = Math.max(maxY, point.y());
+            }
+        }
+        if (maxX < minX) {
+            return new RegionIndex<>(0, 0, 0, 0, new int[0], byId);
+        }
+
+        final int width = Math.toIntExact((long) maxX - minX + 1);
+        final int height = Math.toIntExact((long) maxY - minY + 1);
+        final int[] ids = new int[Math.multiplyExact(width, height)];
+        Arrays.fill(ids, NO_REGION);
+        for (int id = 0; id < byId.size(); id++) {
+            for (final TwoDimIntPoint point : pointsOf.apply(byId.get(id))) {
+                final int idx = (point.y() - minY) * width + (point.x() - minX);
+                if (ids[idx] != NO_REGION && ids[idx] != id) {
+                    throw new IllegalArgumentException("Regions overlap at " + point);
+                }
+                ids[idx] = id;
+            }
+        }
+        return new RegionIndex<>(minX, minY, width, height, ids, byId);
+    }
+
+    /**
+     * Index the cardinally connected groups of Nodes that pass {@code cellPredicate}, each labelled by the set of
+     * its Points, as found by {@link ComponentLabeller}
+     */
+    public static <N> RegionIndex<Set<TwoDimIntPoint>> of(final TwoDimIntGrid<N> grid,
+                                                          final Predicate<? super N> cellPredicate) {
+        return ComponentLabeller.label(grid, cellPredicate, ComponentLabeller.Connectivity.CARDINAL).toRegionIndex();
+    }
+}
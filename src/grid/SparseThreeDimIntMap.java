@@ -0,0 +1,80 @@
+package grid;
+
+/**
+ * A ThreeDimIntMap for unbounded or very sparse grids. Each Point is packed into a {@code long} with 21 bits
+ * per dimension, so every coordinate must lie within {@code [-2^20, 2^20)}
+ *
+ * @param <N> type of Node
+ */
+class SparseThreeDimIntMap<N>
+        extends PackedKeyMap<ThreeDimIntPoint, N>
+        implements ThreeDimIntMap<N> {
+
+    static final int MIN_COORD = -(1 << 20);
+    static final int MAX_COORD = (1 << 20) - 1;
+
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    SparseThreeDimIntMap() {
+    }
+
+    SparseThreeDimIntMap(final int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    public N get(final int x, final int y, final int z) {
+        return inRange(x, y, z) ? getPacked(packUnchecked(x, y, z)) : null;
+    }
+
+    @Override
+    public N put(final int x, final int y, final int z, final N value) {
+        return putPacked(pack(x, y, z), value);
+    }
+
+    @Override
+    public boolean containsKey(final int x, final int y, final int z) {
+        return inRange(x, y, z) && containsPacked(packUnchecked(x, y, z));
+    }
+
+    @Override
+    protected long pack(final ThreeDimIntPoint key) {
+        return pack(key.x(), key.y(), key.z());
+    }
+
+    @Override
+    protected boolean isPackable(final Object key) {
+        return key instanceof final ThreeDimIntPoint point && inRange(point.x(), point.y(), point.z());
+    }
+
+    @Override
+    protected ThreeDimIntPoint unpack(final long packed) {
+        return new ThreeDimIntPoint(
+                unpackDim(packed >> (BITS * 2)),
+                unpackDim(packed >> BITS),
+                unpackDim(packed));
+    }
+
+    static long pack(final int x, final int y, final int z) {
+        if (!inRange(x, y, z)) {
+            throw new IllegalArgumentException("Point out of packable range: (%d, %d, %d)".formatted(x, y, z));
+        }
+        return packUnchecked(x, y, z);
+    }
+
+    private static long packUnchecked(final int x, final int y, final int z) {
+        return ((x & MASK) << (BITS * 2)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    // sign-extend the low 21 bits
+    private static int unpackDim(final long bits) {
+        return (int) ((bits & MASK) << (Long.SIZE - BITS) >> (Long.SIZE - BITS));
+    }
+
+    private static boolean inRange(final int x, final int y, final int z) {
+        return x >= MIN_COORD && x <= MAX_COORD
+                && y >= MIN_COORD && y <= MAX_COORD
+                && z >= MIN_COORD && z <= MAX_COORD;
+    }
+}
@@ -0,0 +1,53 @@
+package grid;
+
+/**
+ * A TwoDimIntMap for unbounded or very sparse grids. Each Point is packed into a {@code long} as
+ * {@code x} in the high half and {@code y} in the low half, so the full int range of both dimensions is supported
+ *
+ * @param <N> type of Node
+ */
+class SparseTwoDimIntMap<N>
+        extends PackedKeyMap<TwoDimIntPoint, N>
+        implements TwoDimIntMap<N> {
+
+    SparseTwoDimIntMap() {
+    }
+
+    SparseTwoDimIntMap(final int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    public N get(final int x, final int y) {
+        return getPacked(pack(x, y));
+    }
+
+    @Override
+    public N put(final int x, final int y, final N value) {
+        return putPacked(pack(x, y), value);
+    }
+
+    @Override
+    public boolean containsKey(final int x, final int y) {
+        return containsPacked(pack(x, y));
+    }
+
+    @Override
+    protected long pack(final TwoDimIntPoint key) {
+        return pack(key.x(), key.y());
+    }
+
+    @Override
+    protected boolean isPackable(final Object key) {
+        return key instanceof TwoDimIntPoint;
+    }
+
+    @Override
+    protected TwoDimIntPoint unpack(final long packed) {
+        return new TwoDimIntPoint((int) (packed >> 32), (int) packed);
+    }
+
+    static long pack(final int x, final int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -2,18 +2,53 @@ package grid;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.stream.Collector;
 
 public class ThreeDimIntGrid<N>
         extends BaseGrid<Integer, ThreeDimIntPoint, N> {
 
+    // Neighbour offsets, cardinals first so the first six entries double as the cardinal table
+    private static final int[] NEIGHBOUR_DX;
+    private static final int[] NEIGHBOUR_DY;
+    private static final int[] NEIGHBOUR_DZ;
+    private static final int NUM_CARDINAL = 6;
+    private static final int NUM_ORTHOGONAL = 26;
+
+    static {
+        NEIGHBOUR_DX = new int[NUM_ORTHOGONAL];
+        NEIGHBOUR_DY = new int[NUM_ORTHOGONAL];
+        NEIGHBOUR_DZ = new int[NUM_ORTHOGONAL];
+        int cardinal = 0;
+        int diagonal = NUM_CARDINAL;
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    final int dist = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+                    if (dist == 0) {
+                        continue;
+                    }
+                    final int idx = dist == 1 ? cardinal++ : diagonal++;
+                    NEIGHBOUR_DX[idx] = dx;
+                    NEIGHBOUR_DY[idx] = dy;
+                    NEIGHBOUR_DZ[idx] = dz;
+                }
+            }
+        }
+    }
+
     private int minX, maxX, minY, maxY, minZ, maxZ;
 
+    // Non-null when the delegate can be addressed without building a Point
+    private final ThreeDimIntMap<N> intMap;
+
     private ThreeDimIntGrid() {
+        this.intMap = null;
     }
 
     private ThreeDimIntGrid(final Map<ThreeDimIntPoint, N> map) {
         super(map);
+        this.intMap = map instanceof final ThreeDimIntMap<N> intMap ? intMap : null;
     }
 
     @Override
@@ -58,32 +93,99 @@ public class ThreeDimIntGrid<N>
 
     @Override
     public N put(final ThreeDimIntPoint key, final N value) {
-        final N node = super.put(key, value);
-        this.minX = Math.min(key.x(), this.minX);
-        this.maxX = Math.max(key.x(), this.maxX);
-        this.minY = Math.min(key.y(), this.minY);
-        this.maxY = Math.max(key.y(), this.maxY);
-        this.minZ = Math.min(key.z(), this.minZ);
-        this.maxZ = Math.max(key.z(), this.maxZ);
-        return node;
+        return put(key.x(), key.y(), key.z(), value);
+    }
+
+    @Override
+    public void putAll(final Map<? extends ThreeDimIntPoint, ? extends N> m) {
+        m.forEach(this::put);
     }
 
     public N put(final int x, final int y, final int z, final N value) {
-        return put(new ThreeDimIntPoint(x, y, z), value);
+        final N node = this.intMap != null
+                ? this.intMap.put(x, y, z, value)
+                : super.put(new ThreeDimIntPoint(x, y, z), value);
+        this.minX = Math.min(x, this.minX);
+        this.maxX = Math.max(x, this.maxX);
+        this.minY = Math.min(y, this.minY);
+        this.maxY = Math.max(y, this.maxY);
+        this.minZ = Math.min(z, this.minZ);
+        this.maxZ = Math.max(z, this.maxZ);
+        return node;
     }
 
     public Optional<N> maybeGet(final int x, final int y, final int z) {
-        return maybeGet(new ThreeDimIntPoint(x, y, z));
+        return Optional.ofNullable(get(x, y, z));
     }
 
     public N get(final int x, final int y, final int z) {
-        return get(new ThreeDimIntPoint(x, y, z));
+        return this.intMap != null
+                ? this.intMap.get(x, y, z)
+                : get(new ThreeDimIntPoint(x, y, z));
+    }
+
+    public boolean containsKey(final int x, final int y, final int z) {
+        return this.intMap != null
+                ? this.intMap.containsKey(x, y, z)
+                : containsKey(new ThreeDimIntPoint(x, y, z));
+    }
+
+    @Override
+    public void forEachCardinalNeighbour(final ThreeDimIntPoint point,
+                                         final BiConsumer<? super ThreeDimIntPoint, ? super N> consumer) {
+        forEachNeighbour(point.x(), point.y(), point.z(), NUM_CARDINAL,
+                (x, y, z) -> consumer.accept(new ThreeDimIntPoint(x, y, z), get(x, y, z)));
+    }
+
+    @Override
+    public void forEachOrthogonalNeighbour(final ThreeDimIntPoint point,
+                                           final BiConsumer<? super ThreeDimIntPoint, ? super N> consumer) {
+        forEachNeighbour(point.x(), point.y(), point.z(), NUM_ORTHOGONAL,
+                (x, y, z) -> consumer.accept(new ThreeDimIntPoint(x, y, z), get(x, y, z)));
+    }
+
+    public void forEachCardinalNeighbour(final int x, final int y, final int z,
+                                         final ThreeDimIntPointConsumer consumer) {
+        forEachNeighbour(x, y, z, NUM_CARDINAL, consumer);
+    }
+
+    public void forEachOrthogonalNeighbour(final int x, final int y, final int z,
+                                           final ThreeDimIntPointConsumer consumer) {
+        forEachNeighbour(x, y, z, NUM_ORTHOGONAL, consumer);
+    }
+
+    private void forEachNeighbour(final int x, final int y, final int z,
+                                  final int numOffsets,
+                                  final ThreeDimIntPointConsumer consumer) {
+        for (int i = 0; i < numOffsets; i++) {
+            final int nx = x + NEIGHBOUR_DX[i];
+            final int ny = y + NEIGHBOUR_DY[i];
+            final int nz = z + NEIGHBOUR_DZ[i];
+            if (containsKey(nx, ny, nz)) {
+                consumer.accept(nx, ny, nz);
+            }
+        }
     }
 
     public static <N> ThreeDimIntGrid<N> of() {
         return new ThreeDimIntGrid<>();
     }
 
+    /**
+     * @return an empty grid backed by an open addressing map of packed {@code long} keys, for unbounded or very
+     * sparse grids. Every coordinate must lie within {@code [-2^20, 2^20)}
+     */
+    public static <N> ThreeDimIntGrid<N> sparse() {
+        return new ThreeDimIntGrid<>(new SparseThreeDimIntMap<>());
+    }
+
+    /**
+     * @return an empty sparse grid pre-sized to hold {@code expectedSize} Nodes without resizing
+     */
+    public static <N> ThreeDimIntGrid<N> sparse(final int expectedSize) {
+        return new ThreeDimIntGrid<>(new SparseThreeDimIntMap<>(expectedSize));
+    }
+
     public static <N> Collector<ThreeDimIntPoint, ?, ThreeDimIntGrid<N>> emptyCollector() {
         return defaultCollector(null);
     }
@@ -95,4 +197,12 @@ public class ThreeDimIntGrid<N>
     public static <N> Collector<util.Pair<ThreeDimIntPoint, N>, ?, ThreeDimIntGrid<N>> pairCollector() {
         return createCollector(ThreeDimIntGrid::new);
     }
+
+    public static <N> Collector<ThreeDimIntPoint, ?, ThreeDimIntGrid<N>> sparseDefaultCollector(final N defaultNode) {
+        return createCollector(ThreeDimIntGrid::sparse, defaultNode);
+    }
+
+    public static <N> Collector<util.Pair<ThreeDimIntPoint, N>, ?, ThreeDimIntGrid<N>> sparsePairCollector() {
+        return createCollector(ThreeDimIntGrid::sparse);
+    }
 }
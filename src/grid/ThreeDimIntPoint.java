@@ -1,7 +1,6 @@
 package grid;
 
 import java.util.Comparator;
-import java.util.Objects;
 import java.util.function.BinaryOperator;
 import java.util.stream.Stream;
 
@@ -48,11 +47,21 @@ public record ThreeDimIntPoint(int x, int y, int z)
 
     @Override
     public boolean isCardinal(final Point<Integer> point) {
+        if (point instanceof final ThreeDimIntPoint that) {
+            return Math.abs(Math.subtractExact(this.x, that.x))
+                    + Math.abs(Math.subtractExact(this.y, that.y))
+                    + Math.abs(Math.subtractExact(this.z, that.z)) == 1;
+        }
         return PointUtils.isCardinal(this, point);
     }
 
     @Override
     public boolean isOrthogonal(final Point<Integer> point) {
+        if (point instanceof final ThreeDimIntPoint that) {
+            return Math.abs(Math.subtractExact(this.x, that.x)) <= 1
+                    && Math.abs(Math.subtractExact(this.y, that.y)) <= 1
+                    && Math.abs(Math.subtractExact(this.z, that.z)) <= 1;
+        }
         return PointUtils.isOrthogonal(this, point);
     }
 
@@ -78,6 +87,7 @@ public record ThreeDimIntPoint(int x, int y, int z)
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.x, this.y, this.z);
+        // Same value as Objects.hash(x, y, z), without boxing or a varargs array
+        return 31 * (31 * (31 + this.x) + this.y) + this.z;
     }
 }
@@ -0,0 +1,10 @@
+package grid;
+
+/**
+ * Receives a three dimensional integer coordinate without it being boxed into a Point
+ */
+@FunctionalInterface
+public interface ThreeDimIntPointConsumer {
+
+    void accept(int x, int y, int z);
+}
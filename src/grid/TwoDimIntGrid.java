@@ -1,14 +1,31 @@
 package grid;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.stream.Collector;
 
 public class TwoDimIntGrid<N>
         extends BaseGrid<Integer, TwoDimIntPoint, N> {
 
+    // Neighbour offsets, cardinals first so the first four entries double as the cardinal table
+    private static final int[] NEIGHBOUR_DX = {0, 1, 0, -1, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_DY = {-1, 0, 1, 0, -1, 1, 1, -1};
+    private static final int NUM_CARDINAL = 4;
+    private static final int NUM_ORTHOGONAL = 8;
+
     private int minX, maxX, minY, maxY;
 
+    // Non-null when the delegate can be addressed without building a Point
+    private final TwoDimIntMap<N> intMap;
+
     private TwoDimIntGrid() {
+        this.intMap = null;
+    }
+
+    private TwoDimIntGrid(final TwoDimIntMap<N> map) {
+        super(map);
+        this.intMap = map;
     }
 
     @Override
@@ -53,30 +70,131 @@ public class TwoDimIntGrid<N>
 
     @Override
     public N put(final TwoDimIntPoint key, final N value) {
-        final N node = super.put(key, value);
-        this.minX = Math.min(key.x(), this.minX);
-        this.maxX = Math.max(key.x(), this.maxX);
-        this.minY = Math.min(key.y(), this.minY);
-        this.maxY = Math.max(key.y(), this.maxY);
-        return node;
+        return put(key.x(), key.y(), value);
+    }
+
+    @Override
+    public void putAll(final Map<? extends TwoDimIntPoint, ? extends N> m) {
+        m.forEach(this::put);
     }
 
     public N put(final int x, final int y, final N value) {
-        return put(new TwoDimIntPoint(x, y), value);
+        final N node = this.intMap != null
+                ? this.intMap.put(x, y, value)
+                : super.put(new TwoDimIntPoint(x, y), value);
+        this.minX = Math.min(x, this.minX);
+        this.maxX = Math.max(x, this.maxX);
+        this.minY = Math.min(y, this.minY);
+        this.maxY = Math.max(y, this.maxY);
+        return node;
     }
 
     public Optional<N> maybeGet(final int x, final int y) {
-        return maybeGet(new TwoDimIntPoint(x, y));
+        return Optional.ofNullable(get(x, y));
     }
 
     public N get(final int x, final int y) {
-        return get(new TwoDimIntPoint(x, y));
+        return this.intMap != null
+                ? this.intMap.get(x, y)
+                : get(new TwoDimIntPoint(x, y));
+    }
+
+    public boolean containsKey(final int x, final int y) {
+        return this.intMap != null
+                ? this.intMap.containsKey(x, y)
+                : containsKey(new TwoDimIntPoint(x, y));
+    }
+
+    @Override
+    public void forEachCardinalNeighbour(final TwoDimIntPoint point,
+                                         final BiConsumer<? super TwoDimIntPoint, ? super N> consumer) {
+        forEachNeighbour(point.x(), point.y(), NUM_CARDINAL,
+                (x, y) -> consumer.accept(new TwoDimIntPoint(x, y), get(x, y)));
+    }
+
+    @Override
+    public void forEachOrthogonalNeighbour(final TwoDimIntPoint point,
+                                           final BiConsumer<? super TwoDimIntPoint, ? super N> consumer) {
+        forEachNeighbour(point.x(), point.y(), NUM_ORTHOGONAL,
+                (x, y) -> consumer.accept(new TwoDimIntPoint(x, y), get(x, y)));
+    }
+
+    public void forEachCardinalNeighbour(final int x, final int y, final IntPointConsumer consumer) {
+        forEachNeighbour(x, y, NUM_CARDINAL, consumer);
+    }
+
+    public void forEachOrthogonalNeighbour(final int x, final int y, final IntPointConsumer consumer) {
+        forEachNeighbour(x, y, NUM_ORTHOGONAL, consumer);
+    }
+
+    /**
+     * @return does any mapped Point cardinal to {@code (x, y)} pass the {@code predicate}
+     */
+    public boolean anyCardinalNeighbour(final int x, final int y, final IntPointPredicate predicate) {
+        return anyNeighbour(x, y, NUM_CARDINAL, predicate);
+    }
+
+    /**
+     * @return does any mapped Point orthogonal to {@code (x, y)} pass the {@code predicate}
+     */
+    public boolean anyOrthogonalNeighbour(final int x, final int y, final IntPointPredicate predicate) {
+        return anyNeighbour(x, y, NUM_ORTHOGONAL, predicate);
+    }
+
+    private void forEachNeighbour(final int x, final int y, final int numOffsets, final IntPointConsumer consumer) {
+        for (int i = 0; i < numOffsets; i++) {
+            final int nx = x + NEIGHBOUR_DX[i];
+            final int ny = y + NEIGHBOUR_DY[i];
+            if (containsKey(nx, ny)) {
+                consumer.accept(nx, ny);
+            }
+        }
+    }
+
+    private boolean anyNeighbour(final int x, final int y, final int numOffsets, final IntPointPredicate predicate) {
+        for (int i = 0; i < numOffsets; i++) {
+            final int nx = x + NEIGHBOUR_DX[i];
+            final int ny = y + NEIGHBOUR_DY[i];
+            if (containsKey(nx, ny) && predicate.test(nx, ny)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static <N> TwoDimIntGrid<N> of() {
         return new TwoDimIntGrid<>();
     }
 
+    /**
+     * @return an empty grid backed by a flat array that grows to fit whatever is put into it
+     */
+    public static <N> TwoDimIntGrid<N> dense() {
+        return new TwoDimIntGrid<>(new DenseTwoDimIntMap<>());
+    }
+
+    /**
+     * @return an empty grid backed by a flat array pre-sized to the inclusive bounds given
+     */
+    public static <N> TwoDimIntGrid<N> dense(final int minX, final int minY, final int maxX, final int maxY) {
+        return new TwoDimIntGrid<>(new DenseTwoDimIntMap<>(minX, minY, maxX, maxY));
+    }
+
+    /**
+     * @return an empty grid backed by an open addressing map of packed {@code long} keys, for unbounded or very
+     * sparse grids where a dense array would be mostly empty
+     */
+    public static <N> TwoDimIntGrid<N> sparse() {
+        return new TwoDimIntGrid<>(new SparseTwoDimIntMap<>());
+    }
+
+    /**
+     * @return an empty sparse grid pre-sized to hold {@code expectedSize} Nodes without resizing
+     */
+    public static <N> TwoDimIntGrid<N> sparse(final int expectedSize) {
+        return new TwoDimIntGrid<>(new SparseTwoDimIntMap<>(expectedSize));
+    }
+
     public static <N> Collector<TwoDimIntPoint, ?, TwoDimIntGrid<N>> emptyCollector() {
         return defaultCollector(null);
     }
@@ -88,4 +206,20 @@ public class TwoDimIntGrid<N>
     public static <N> Collector<util.Pair<TwoDimIntPoint, N>, ?, TwoDimIntGrid<N>> pairCollector() {
         return createCollector(TwoDimIntGrid::new);
     }
+
+    public static <N> Collector<TwoDimIntPoint, ?, TwoDimIntGrid<N>> denseDefaultCollector(final N defaultNode) {
+        return createCollector(TwoDimIntGrid::dense, defaultNode);
+    }
+
+    public static <N> Collector<util.Pair<TwoDimIntPoint, N>, ?, TwoDimIntGrid<N>> densePairCollector() {
+        return createCollector(TwoDimIntGrid::dense);
+    }
+
+    public static <N> Collector<TwoDimIntPoint, ?, TwoDimIntGrid<N>> sparseDefaultCollector(final N defaultNode) {
+        return createCollector(TwoDimIntGrid::sparse, defaultNode);
+    }
+
+    public static <N> Collector<util.Pair<TwoDimIntPoint, N>, ?, TwoDimIntGrid<N>> sparsePairCollector() {
+        return createCollector(TwoDimIntGrid::sparse);
+    }
 }
@@ -0,0 +1,28 @@
+package grid;
+
+import java.util.Map;
+
+/**
+ * A Map of TwoDimIntPoints that can also be addressed directly by primitive coordinates, so lookups by
+ * {@code (x, y)} do not need to create a Point key
+ *
+ * @param <N> type of Node
+ */
+interface TwoDimIntMap<N>
+        extends Map<TwoDimIntPoint, N> {
+
+    /**
+     * @return the Node at {@code (x, y)}, or null if there is none
+     */
+    N get(int x, int y);
+
+    /**
+     * @return the Node previously at {@code (x, y)}, or null if there was none
+     */
+    N put(int x, int y, N value);
+
+    /**
+     * @return is there a mapping at {@code (x, y)}, even if that mapping is to null
+     */
+    boolean containsKey(int x, int y);
+}
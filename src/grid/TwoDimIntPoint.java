@@ -1,7 +1,6 @@
 package grid;
 
 import java.util.Comparator;
-import java.util.Objects;
 import java.util.function.BinaryOperator;
 import java.util.stream.Stream;
 
@@ -47,11 +46,19 @@ public record TwoDimIntPoint(int x, int y)
 
     @Override
     public boolean isCardinal(final Point<Integer> point) {
+        if (point instanceof final TwoDimIntPoint that) {
+            return Math.abs(Math.subtractExact(this.x, that.x))
+                    + Math.abs(Math.subtractExact(this.y, that.y)) == 1;
+        }
         return PointUtils.isCardinal(this, point);
     }
 
     @Override
     public boolean isOrthogonal(final Point<Integer> point) {
+        if (point instanceof final TwoDimIntPoint that) {
+            return Math.abs(Math.subtractExact(this.x, that.x)) <= 1
+                    && Math.abs(Math.subtractExact(this.y, that.y)) <= 1;
+        }
         return PointUtils.isOrthogonal(this, point);
     }
 
@@ -76,6 +83,7 @@ public record TwoDimIntPoint(int x, int y)
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.x, this.y);
+        // Same value as Objects.hash(x, y), without boxing or a varargs array
+        return 31 * (31 + this.x) + this.y;
     }
 }
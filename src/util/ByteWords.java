@@ -0,0 +1,61 @@
+package util;
+
+/**
+ * Byte-parallel tests over the eight bytes packed into a little-endian {@code long}, so that a scan can look at a
+ * word of input per step instead of a byte. Each test returns a mask with the high bit of every matching byte set
+ * and all other bits clear, and is exact - there is no carry between bytes and so no false positive to recheck
+ */
+public class ByteWords {
+
+    public static final int BYTES = Long.BYTES;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private ByteWords() {
+    }
+
+    /**
+     * @return mask of the bytes of {@code word} equal to {@code value}
+     */
+    public static long equalTo(final long word, final byte value) {
+        final long diff = word ^ (ONES * (value & 0xFF));
+        // the low seven bits of a byte plus 0x7F carry into its high bit unless they are all zero
+        return ~(((diff & LOW_BITS) + LOW_BITS) | diff) & HIGH_BITS;
+    }
+
+    /**
+     * @return mask of the bytes of {@code word} within {@code [low, high]}, both of which must be ASCII
+     */
+    public static long inRange(final long word, final byte low, final byte high) {
+        if (low < 0 || high < 0) {
+            throw new IllegalArgumentException("Bounds must be ASCII: %d, %d".formatted(low, high));
+        }
+        final long lowBits = word & LOW_BITS;
+        final long atLeastLow = (lowBits + ONES * (0x80 - low)) & HIGH_BITS;
+        final long aboveHigh = (lowBits + ONES * (0x7F - high)) & HIGH_BITS;
+        return atLeastLow & ~aboveHigh & ~word;
+    }
+
+    /**
+     * @return index of the lowest addressed byte set in the non-zero {@code mask}
+     */
+    public static int firstByte(final long mask) {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+
+    /**
+     * @return index of the highest addressed byte set in the non-zero {@code mask}
+     */
+    public static int lastByte(final long mask) {
+        return (Long.SIZE - 1 - Long.numberOfLeadingZeros(mask)) >>> 3;
+    }
+
+    /**
+     * @return the {@code index}th byte of {@code word}, unsigned
+     */
+    public static int byteAt(final long word, final int index) {
+        return (int) (word >>> (index << 3)) & 0xFF;
+    }
+}
@@ -30,6 +30,10 @@ public class InputUtil {
         }
     }
 
+    public static MappedInput mapped(final String day) {
+        return MappedInput.of(Path.of("inputs/" + day + ".txt"));
+    }
+
     public static Stream<String> splitStream(final String string, final String needle) {
         return Stream.of(string.split(needle)).map(String::trim);
     }
@@ -0,0 +1,259 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * An immutable function over longs made of disjoint half-open intervals, each of which shifts the values inside it by
+ * a fixed offset. Values outside every interval map to themselves. Intervals are held sorted in parallel primitive
+ * arrays, so a lookup is a single binary search and never allocates
+ */
+public class LongIntervalMap {
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] offsets;
+
+    private LongIntervalMap(final long[] starts, final long[] ends, final long[] offsets) {
+        this.starts = starts;
+        this.ends = ends;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return number of intervals
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+    /**
+     * @return inclusive start of the {@code i}th interval, in ascending order
+     */
+    public long start(final int i) {
+        return this.starts[i];
+    }
+
+    /**
+     * @return exclusive end of the {@code i}th interval
+     */
+    public long end(final int i) {
+        return this.ends[i];
+    }
+
+    /**
+     * @return amount added to values within the {@code i}th interval
+     */
+    public long offset(final int i) {
+        return this.offsets[i];
+    }
+
+    /**
+     * @return index of the interval containing {@code value}, or -1 if it is in none
+     */
+    public int indexOf(final long value) {
+        int idx = Arrays.binarySearch(this.starts, value);
+        if (idx < 0) {
+            idx = -idx - 2;
+        }
+        return idx >= 0 && value < this.ends[idx] ? idx : -1;
+    }
+
+    /**
+     * @return {@code value} shifted by the offset of the interval containing it, if any
+     */
+    public long eval(final long value) {
+        final int idx = indexOf(value);
+        return idx < 0 ? value : value + this.offsets[idx];
+    }
+
+    /**
+     * Evaluate every element of {@code values}, in place
+     *
+     * @return {@code values}
+     */
+    public long[] evalAll(final long[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = eval(values[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @return the map that applies this map and then {@code next}, as a single set of intervals
+     */
+    public LongIntervalMap andThen(final LongIntervalMap next) {
+        final Builder composed = new Builder(this.starts.length + next.starts.length);
+        forEachPiece(Long.MIN_VALUE, Long.MAX_VALUE, (start, end, offset) ->
+                next.forEachPiece(start + offset, end + offset, (nextStart, nextEnd, nextOffset) ->
+                        composed.append(nextStart - offset, nextEnd - offset, offset + nextOffset)));
+        return composed.buildAppended();
+    }
+
+    /**
+     * @return the least value that any of {@code [from, to)} maps to
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public long min(final long from, final long to) {
+        if (from >= to) {
+            throw new IllegalArgumentException("Empty range: [%d, %d)".formatted(from, to));
+        }
+        // Values are shifted by a constant within a piece, so each piece is least at its start
+        final long[] min = {Long.MAX_VALUE};
+        forEachPiece(from, to, (start, end, offset) -> min[0] = Math.min(min[0], start + offset));
+        return min[0];
+    }
+
+    /**
+     * Visit {@code [from, to)} split into the pieces within which this map applies a single offset, in order.
+     * Pieces outside every interval are visited with an offset of zero
+     */
+    public void forEachPiece(final long from, final long to, final PieceConsumer consumer) {
+        // start from the first interval that ends after from
+        int idx = Arrays.binarySearch(this.starts, from);
+        if (idx < 0) {
+            idx = -idx - 2;
+            if (idx < 0 || this.ends[idx] <= from) {
+                idx++;
+            }
+        }
+        long cur = from;
+        while (cur < to) {
+            if (idx < this.starts.length && this.starts[idx] <= cur) {
+                final long end = Math.min(to, this.ends[idx]);
+                consumer.accept(cur, end, this.offsets[idx]);
+                cur = end;
+                idx++;
+            }
+            else {
+                final long end = idx < this.starts.length ? Math.min(to, this.starts[idx]) : to;
+                consumer.accept(cur, end, 0);
+                cur = end;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LongIntervalMap[");
+        for (int i = 0; i < this.starts.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("[%d, %d) %+d".formatted(this.starts[i], this.ends[i], this.offsets[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Build from parallel arrays of intervals, given in any order. Empty intervals are dropped
+     *
+     * @throws IllegalArgumentException if the arrays differ in length or any two intervals overlap
+     */
+    public static LongIntervalMap of(final long[] starts, final long[] ends, final long[] offsets) {
+        if (starts.length != ends.length || starts.length != offsets.length) {
+            throw new IllegalArgumentException("Mismatched lengths: %d, %d, %d".formatted(
+                    starts.length, ends.length, offsets.length));
+        }
+        final int[] order = RadixSort.sortedOrder(starts);
+        final long[] sortedStarts = new long[order.length];
+        final long[] sortedEnds = new long[order.length];
+        final long[] sortedOffsets = new long[order.length];
+        int size = 0;
+        for (final int i : order) {
+            if (starts[i] >= ends[i]) {
+                continue;
+            }
+            if (size > 0 && starts[i] < sortedEnds[size - 1]) {
+                throw new IllegalArgumentException("Intervals overlap: [%d, %d) and [%d, %d)".formatted(
+                        sortedStarts[size - 1], sortedEnds[size - 1], starts[i], ends[i]));
+            }
+            sortedStarts[size] = starts[i];
+            sortedEnds[size] = ends[i];
+            sortedOffsets[size] = offsets[i];
+            size++;
+        }
+        return new LongIntervalMap(Arrays.copyOf(sortedStarts, size),
+                Arrays.copyOf(sortedEnds, size),
+                Arrays.copyOf(sortedOffsets, size));
+    }
+
+    /**
+     * @return the map that leaves every value unchanged
+     */
+    public static LongIntervalMap identity() {
+        return new LongIntervalMap(new long[0], new long[0], new long[0]);
+    }
+
+    @FunctionalInterface
+    public interface PieceConsumer {
+        void accept(long start, long end, long offset);
+    }
+
+    /**
+     * Accumulates intervals one at a time into primitive arrays, for building a map from input as it is read
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] starts;
+        private long[] ends;
+        private long[] offsets;
+        private int size;
+
+        public Builder() {
+            this(INITIAL_CAPACITY);
+        }
+
+        private Builder(final int capacity) {
+            this.starts = new long[Math.max(1, capacity)];
+            this.ends = new long[this.starts.length];
+            this.offsets = new long[this.starts.length];
+        }
+
+        /**
+         * Add an interval, in any order
+         */
+        public Builder add(final long start, final long end, final long offset) {
+            if (this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size * 2);
+                this.ends = Arrays.copyOf(this.ends, this.size * 2);
+                this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+            }
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.offsets[this.size] = offset;
+            this.size++;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if any two intervals overlap
+         */
+        public LongIntervalMap build() {
+            return of(Arrays.copyOf(this.starts, this.size),
+                    Arrays.copyOf(this.ends, this.size),
+                    Arrays.copyOf(this.offsets, this.size));
+        }
+
+        // Add an interval that starts at or after the end of every interval so far, merging it into the last
+        // interval if they touch with equal offsets, and dropping it if it has the zero offset identity already gives
+        private void append(final long start, final long end, final long offset) {
+            if (offset == 0 || start >= end) {
+                return;
+            }
+            if (this.size > 0 && this.ends[this.size - 1] == start && this.offsets[this.size - 1] == offset) {
+                this.ends[this.size - 1] = end;
+                return;
+            }
+            add(start, end, offset);
+        }
+
+        // Build from appended intervals, which are already sorted and disjoint
+        private LongIntervalMap buildAppended() {
+            return new LongIntervalMap(
+                    Arrays.copyOf(this.starts, this.size),
+                    Arrays.copyOf(this.ends, this.size),
+                    Arrays.copyOf(this.offsets, this.size));
+        }
+    }
+}
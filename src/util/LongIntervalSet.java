@@ -0,0 +1,280 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of longs held as half-open intervals. Intervals are always normalised - sorted, non-empty, and
+ * coalesced so that no two overlap or touch - which keeps every set operation a linear merge over two sorted
+ * primitive arrays
+ */
+public class LongIntervalSet {
+
+    private static final LongIntervalSet EMPTY = new LongIntervalSet(new long[0], new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private LongIntervalSet(final long[] starts, final long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * @return number of intervals
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+    public boolean isEmpty() {
+        return this.starts.length == 0;
+    }
+
+    /**
+     * @return inclusive start of the {@code i}th interval, in ascending order
+     */
+    public long start(final int i) {
+        return this.starts[i];
+    }
+
+    /**
+     * @return exclusive end of the {@code i}th interval
+     */
+    public long end(final int i) {
+        return this.ends[i];
+    }
+
+    /**
+     * @return least value in the set
+     * @throws IllegalStateException if the set is empty
+     */
+    public long min() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Empty set has no min");
+        }
+        return this.starts[0];
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < this.starts.length; i++) {
+            count = Math.addExact(count, this.ends[i] - this.starts[i]);
+        }
+        return count;
+    }
+
+    public boolean contains(final long value) {
+        int idx = Arrays.binarySearch(this.starts, value);
+        if (idx < 0) {
+            idx = -idx - 2;
+        }
+        return idx >= 0 && value < this.ends[idx];
+    }
+
+    /**
+     * @return every value in this set or {@code other}
+     */
+    public LongIntervalSet union(final LongIntervalSet other) {
+        final Builder union = new Builder(this.starts.length + other.starts.length);
+        int i = 0;
+        int j = 0;
+        while (i < this.starts.length || j < other.starts.length) {
+            if (j == other.starts.length || (i < this.starts.length && this.starts[i] <= other.starts[j])) {
+                union.append(this.starts[i], this.ends[i]);
+                i++;
+            }
+            else {
+                union.append(other.starts[j], other.ends[j]);
+                j++;
+            }
+        }
+        return union.build();
+    }
+
+    /**
+     * @return every value in both this set and {@code other}
+     */
+    public LongIntervalSet intersect(final LongIntervalSet other) {
+        final Builder intersection = new Builder(Math.min(this.starts.length, other.starts.length));
+        int i = 0;
+        int j = 0;
+        while (i < this.starts.length && j < other.starts.length) {
+            intersection.append(Math.max(this.starts[i], other.starts[j]), Math.min(this.ends[i], other.ends[j]));
+            // step past whichever interval finishes first, as it cannot meet anything further along the other set
+            if (this.ends[i] < other.ends[j]) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return intersection.build();
+    }
+
+    /**
+     * @return every value in this set that is not in {@code other}
+     */
+    public LongIntervalSet subtract(final LongIntervalSet other) {
+        final Builder difference = new Builder(this.starts.length + other.starts.length);
+        int j = 0;
+        for (int i = 0; i < this.starts.length; i++) {
+            long cur = this.starts[i];
+            while (j < other.starts.length && other.ends[j] <= cur) {
+                j++;
+            }
+            // an interval of other may run on into the next interval of this set, so only step past it when it ends
+            int k = j;
+            while (k < other.starts.length && other.starts[k] < this.ends[i]) {
+                difference.append(cur, other.starts[k]);
+                cur = Math.max(cur, other.ends[k]);
+                k++;
+            }
+            difference.append(cur, this.ends[i]);
+        }
+        return difference.build();
+    }
+
+    /**
+     * @return every value in this set plus {@code offset}
+     */
+    public LongIntervalSet shift(final long offset) {
+        final long[] shiftedStarts = new long[this.starts.length];
+        final long[] shiftedEnds = new long[this.ends.length];
+        for (int i = 0; i < this.starts.length; i++) {
+            shiftedStarts[i] = Math.addExact(this.starts[i], offset);
+            shiftedEnds[i] = Math.addExact(this.ends[i], offset);
+        }
+        return new LongIntervalSet(shiftedStarts, shiftedEnds);
+    }
+
+    /**
+     * @return the image of this set under {@code map}. Each interval is split where the map's intervals split it,
+     * found by a single walk along the map, and the shifted pieces are normalised once at the end
+     * @throws ArithmeticException if a value overflows a long when shifted
+     */
+    public LongIntervalSet mapThrough(final LongIntervalMap map) {
+        final Builder pieces = new Builder(this.starts.length + map.size());
+        // both are sorted, so the map interval reached only moves forward
+        int j = 0;
+        for (int i = 0; i < this.starts.length; i++) {
+            long cur = this.starts[i];
+            while (j < map.size() && map.end(j) <= cur) {
+                j++;
+            }
+            while (cur < this.ends[i]) {
+                if (j < map.size() && map.start(j) <= cur) {
+                    final long end = Math.min(this.ends[i], map.end(j));
+                    pieces.add(Math.addExact(cur, map.offset(j)), Math.addExact(end, map.offset(j)));
+                    if (end == map.end(j)) {
+                        j++;
+                    }
+                    cur = end;
+                }
+                else {
+                    final long end = j < map.size() ? Math.min(this.ends[i], map.start(j)) : this.ends[i];
+                    pieces.add(cur, end);
+                    cur = end;
+                }
+            }
+        }
+        return pieces.buildUnsorted();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof final LongIntervalSet that
+                && Arrays.equals(this.starts, that.starts)
+                && Arrays.equals(this.ends, that.ends);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.starts) + Arrays.hashCode(this.ends);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LongIntervalSet[");
+        for (int i = 0; i < this.starts.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("[%d, %d)".formatted(this.starts[i], this.ends[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    public static LongIntervalSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the set of {@code [start, end)}, which is empty if {@code end <= start}
+     */
+    public static LongIntervalSet of(final long start, final long end) {
+        return start < end ? new LongIntervalSet(new long[]{start}, new long[]{end}) : EMPTY;
+    }
+
+    /**
+     * Build from parallel arrays of intervals, given in any order and possibly overlapping
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static LongIntervalSet of(final long[] starts, final long[] ends) {
+        if (starts.length != ends.length) {
+            throw new IllegalArgumentException("Mismatched lengths: %d, %d".formatted(starts.length, ends.length));
+        }
+        final Builder builder = new Builder(starts.length);
+        for (final int i : RadixSort.sortedOrder(starts)) {
+            builder.append(starts[i], ends[i]);
+        }
+        return builder.build();
+    }
+
+    // Accumulates intervals, either appended in ascending order of start and coalesced as they arrive, or added in
+    // any order and normalised when built
+    private static class Builder {
+        private long[] starts;
+        private long[] ends;
+        private int size;
+
+        private Builder(final int capacity) {
+            this.starts = new long[Math.max(1, capacity)];
+            this.ends = new long[this.starts.length];
+        }
+
+        private void append(final long start, final long end) {
+            if (start >= end) {
+                return;
+            }
+            if (this.size > 0 && start <= this.ends[this.size - 1]) {
+                this.ends[this.size - 1] = Math.max(this.ends[this.size - 1], end);
+                return;
+            }
+            add(start, end);
+        }
+
+        private void add(final long start, final long end) {
+            if (this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size * 2);
+                this.ends = Arrays.copyOf(this.ends, this.size * 2);
+            }
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.size++;
+        }
+
+        private LongIntervalSet build() {
+            return this.size == 0
+                    ? EMPTY
+                    : new LongIntervalSet(Arrays.copyOf(this.starts, this.size), Arrays.copyOf(this.ends, this.size));
+        }
+
+        private LongIntervalSet buildUnsorted() {
+            return of(Arrays.copyOf(this.starts, this.size), Arrays.copyOf(this.ends, this.size));
+        }
+    }
+}
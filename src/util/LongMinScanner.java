@@ -0,0 +1,281 @@
+package util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Brute force search for the least result of a function over every value of a {@link LongIntervalSet}.
+ * <p>
+ * The set is cut into fixed size chunks which are scanned on a {@link ForkJoinPool}, so idle workers steal chunks
+ * from busy ones however unevenly the intervals are sized. Each worker fills one reused {@code long[]} with a chunk
+ * of values and evaluates it in a single call, then folds the chunk into its own running minimum, so the scan is a
+ * tight primitive loop that allocates nothing per value or per chunk. The workers' minimums are combined once the
+ * scan completes. A scan can report its progress while it runs and can be cancelled from another thread. A scanner
+ * can be scanned again, though one scan at a time
+ */
+public class LongMinScanner {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    // Leaf tasks cover this many chunks, which keeps the number of tasks small without hurting stealing
+    private static final int CHUNKS_PER_TASK = 4;
+
+    private final LongIntervalSet domain;
+    private final BatchFunction function;
+    private final int chunkSize;
+    private final long[] firstChunkOf;
+    private final ThreadLocal<long[]> buffers;
+    private volatile Scan current;
+
+    private LongMinScanner(final LongIntervalSet domain, final BatchFunction function, final int chunkSize) {
+        this.domain = domain;
+        this.function = function;
+        this.chunkSize = chunkSize;
+        this.buffers = ThreadLocal.withInitial(() -> new long[chunkSize]);
+
+        // index of the first chunk of every interval, with the total number of chunks at the end
+        this.firstChunkOf = new long[domain.size() + 1];
+        for (int i = 0; i < domain.size(); i++) {
+            final long length = domain.end(i) - domain.start(i);
+            this.firstChunkOf[i + 1] = this.firstChunkOf[i] + (length + chunkSize - 1) / chunkSize;
+        }
+    }
+
+    /**
+     * Scan every value on the common pool
+     *
+     * @throws CancellationException if the scan is cancelled
+     * @throws IllegalStateException if the domain is empty, or another scan is running
+     */
+    public Result scan() {
+        final Scan scan = start();
+        try {
+            ForkJoinPool.commonPool().invoke(scan.root());
+            return scan.result();
+        }
+        finally {
+            finish(scan);
+        }
+    }
+
+    /**
+     * Scan every value on {@code pool}, calling {@code listener} on this thread every {@code reportEvery}
+     * until the scan finishes
+     *
+     * @throws CancellationException if the scan is cancelled
+     * @throws IllegalStateException if the domain is empty, or another scan is running
+     */
+    public Result scan(final ForkJoinPool pool, final Duration reportEvery, final ProgressListener listener) {
+        final Scan scan = start();
+        try {
+            final ForkJoinTask<Void> task = pool.submit(scan.root());
+            while (true) {
+                try {
+                    task.get(reportEvery.toNanos(), TimeUnit.NANOSECONDS);
+                    return scan.result();
+                }
+                catch (final TimeoutException e) {
+                    listener.onProgress(scan.scanned.sum(), total());
+                }
+                catch (final InterruptedException e) {
+                    scan.cancelled = true;
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted");
+                }
+                catch (final ExecutionException e) {
+                    if (e.getCause() instanceof final RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        }
+        finally {
+            finish(scan);
+        }
+    }
+
+    /**
+     * Stop the running scan, if any - workers finish the chunk they are on and then give up
+     */
+    public void cancel() {
+        final Scan scan = this.current;
+        if (scan != null) {
+            scan.cancelled = true;
+        }
+    }
+
+    /**
+     * @return number of values scanned so far by the running scan, or zero if none is running
+     */
+    public long scanned() {
+        final Scan scan = this.current;
+        return scan == null ? 0 : scan.scanned.sum();
+    }
+
+    /**
+     * @return number of values to scan
+     */
+    public long total() {
+        return this.domain.count();
+    }
+
+    private synchronized Scan start() {
+        if (this.domain.isEmpty()) {
+            throw new IllegalStateException("Nothing to scan");
+        }
+        if (this.current != null) {
+            throw new IllegalStateException("Already scanning");
+        }
+        this.current = new Scan();
+        return this.current;
+    }
+
+    private synchronized void finish(final Scan scan) {
+        if (this.current == scan) {
+            this.current = null;
+        }
+    }
+
+    // Fill the buffer with the chunk, padding a short final chunk with its first value so the whole buffer can be
+    // evaluated without changing the minimum, and fold the chunk's least result into the worker's minimum
+    private void scanChunk(final Scan scan, final long chunk) {
+        // intervals are never empty, so every interval starts on a distinct chunk
+        int interval = Arrays.binarySearch(this.firstChunkOf, chunk);
+        if (interval < 0) {
+            interval = -interval - 2;
+        }
+        final long from = this.domain.start(interval) + (chunk - this.firstChunkOf[interval]) * this.chunkSize;
+        final int length = (int) Math.min(this.chunkSize, this.domain.end(interval) - from);
+
+        final long[] buffer = this.buffers.get();
+        for (int i = 0; i < length; i++) {
+            buffer[i] = from + i;
+        }
+        Arrays.fill(buffer, length, buffer.length, from);
+        this.function.evalAll(buffer);
+
+        int best = 0;
+        for (int i = 1; i < length; i++) {
+            if (buffer[i] < buffer[best]) {
+                best = i;
+            }
+        }
+        scan.best.get().offer(from + best, buffer[best]);
+        scan.scanned.add(length);
+    }
+
+    public static LongMinScanner of(final LongIntervalSet domain, final BatchFunction function) {
+        return of(domain, function, DEFAULT_CHUNK_SIZE);
+    }
+
+    public static LongMinScanner of(final LongIntervalSet domain, final BatchFunction function, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Bad chunk size: " + chunkSize);
+        }
+        return new LongMinScanner(domain, function, chunkSize);
+    }
+
+    /**
+     * Evaluates every element of an array in place
+     */
+    @FunctionalInterface
+    public interface BatchFunction {
+        void evalAll(long[] values);
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long scanned, long total);
+    }
+
+    /**
+     * The least result found, and the first value in scan order that produced it
+     */
+    public record Result(long arg, long min) {
+    }
+
+    // The least result a single worker has seen, with ties going to the lesser argument
+    private static class RunningMin {
+        private long arg = Long.MAX_VALUE;
+        private long min = Long.MAX_VALUE;
+        private boolean found;
+
+        private void offer(final long candidateArg, final long candidateMin) {
+            if (!this.found || candidateMin < this.min || (candidateMin == this.min && candidateArg < this.arg)) {
+                this.arg = candidateArg;
+                this.min = candidateMin;
+                this.found = true;
+            }
+        }
+    }
+
+    // State of a single scan - every worker that joins in registers its own running minimum
+    private class Scan {
+        private final LongAdder scanned = new LongAdder();
+        private final Queue<RunningMin> workerBests = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<RunningMin> best = ThreadLocal.withInitial(() -> {
+            final RunningMin workerBest = new RunningMin();
+            this.workerBests.add(workerBest);
+            return workerBest;
+        });
+        private volatile boolean cancelled;
+
+        private ScanTask root() {
+            return new ScanTask(this, 0, LongMinScanner.this.firstChunkOf[LongMinScanner.this.domain.size()]);
+        }
+
+        // Only called once the root task has completed, which publishes every worker's writes
+        private Result result() {
+            final RunningMin overall = new RunningMin();
+            for (final RunningMin workerBest : this.workerBests) {
+                if (workerBest.found) {
+                    overall.offer(workerBest.arg, workerBest.min);
+                }
+            }
+            return new Result(overall.arg, overall.min);
+        }
+    }
+
+    // Scans the chunks from start inclusive to end exclusive, splitting in half until small enough
+    private class ScanTask
+            extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scan scan;
+        private final long start;
+        private final long end;
+
+        private ScanTask(final Scan scan, final long start, final long end) {
+            this.scan = scan;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > CHUNKS_PER_TASK) {
+                final long mid = (this.start + this.end) >>> 1;
+                invokeAll(new ScanTask(this.scan, this.start, mid), new ScanTask(this.scan, mid, this.end));
+                return;
+            }
+
+            for (long chunk = this.start; chunk < this.end; chunk++) {
+                if (this.scan.cancelled) {
+                    throw new CancellationException("Scan cancelled");
+                }
+                scanChunk(this.scan, chunk);
+            }
+        }
+    }
+}
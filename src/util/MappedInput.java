@@ -0,0 +1,279 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A memory-mapped view of an input file. Nothing is read onto the heap up front - lines and records are found by
+ * scanning the mapping as they are iterated, and are handed out as offsets or as {@link CharSequence} views over the
+ * mapping, so files far larger than the heap can be walked. Bytes are read as ISO-8859-1, which is exact for the
+ * ASCII inputs of the puzzles
+ */
+public class MappedInput {
+
+    // Files are mapped in segments since a single mapping is limited to 2GB
+    private static final int SEGMENT_BITS = 30;
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentBits;
+    private final long segmentMask;
+    private final long size;
+
+    private MappedInput(final MappedByteBuffer[] segments, final int segmentBits, final long size) {
+        this.segments = segments;
+        this.segmentBits = segmentBits;
+        this.segmentMask = (1L << segmentBits) - 1;
+        this.size = size;
+    }
+
+    /**
+     * @return size of the input in bytes
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * @return the byte at {@code offset}
+     */
+    public byte byteAt(final long offset) {
+        return this.segments[(int) (offset >>> this.segmentBits)].get((int) (offset & this.segmentMask));
+    }
+
+    /**
+     * @return the eight bytes from {@code offset} packed little-endian into a long, as for {@link ByteWords}, with
+     * zeros for any past the end of the input
+     */
+    public long longAt(final long offset) {
+        final MappedByteBuffer segment = this.segments[(int) (offset >>> this.segmentBits)];
+        final int index = (int) (offset & this.segmentMask);
+        if (index + ByteWords.BYTES <= segment.limit()) {
+            return segment.getLong(index);
+        }
+        // the word straddles the end of a segment or of the input
+        long word = 0;
+        for (int i = 0; i < ByteWords.BYTES && offset + i < this.size; i++) {
+            word |= (byteAt(offset + i) & 0xFFL) << (i << 3);
+        }
+        return word;
+    }
+
+    /**
+     * @return a view of the bytes from {@code start} inclusive to {@code end} exclusive
+     */
+    public CharSequence view(final long start, final long end) {
+        if (start < 0 || end > this.size || start > end) {
+            throw new IndexOutOfBoundsException("Bad view: [%d, %d) of %d".formatted(start, end, this.size));
+        }
+        return new View(start, Math.toIntExact(end - start));
+    }
+
+    /**
+     * @return offset of the next {@code '\n'} at or after {@code from}, or {@link #size()} if there is none
+     */
+    public long nextLineBreak(final long from) {
+        for (long offset = from; offset < this.size; offset += ByteWords.BYTES) {
+            final long lineBreaks = ByteWords.equalTo(longAt(offset), (byte) '\n');
+            if (lineBreaks != 0) {
+                return offset + ByteWords.firstByte(lineBreaks);
+            }
+        }
+        return this.size;
+    }
+
+    /**
+     * Visit the bounds of every line, excluding its line terminator
+     */
+    public void forEachLine(final BoundsConsumer consumer) {
+        long start = 0;
+        while (start < this.size) {
+            final long lineBreak = nextLineBreak(start);
+            consumer.accept(start, trimCarriageReturn(start, lineBreak));
+            start = lineBreak + 1;
+        }
+    }
+
+    /**
+     * Visit the bounds of every record, where records are separated by blank lines. Bounds exclude the
+     * terminator of the record's last line
+     */
+    public void forEachRecord(final BoundsConsumer consumer) {
+        final Iterator<long[]> itr = new RecordIterator();
+        while (itr.hasNext()) {
+            final long[] bounds = itr.next();
+            consumer.accept(bounds[0], bounds[1]);
+        }
+    }
+
+    /**
+     * @return a lazily scanned Stream of views of every line
+     */
+    public Stream<CharSequence> lines() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Iterator<>() {
+            private long start;
+
+            @Override
+            public boolean hasNext() {
+                return this.start < MappedInput.this.size;
+            }
+
+            @Override
+            public CharSequence next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final long lineBreak = nextLineBreak(this.start);
+                final CharSequence line = view(this.start, trimCarriageReturn(this.start, lineBreak));
+                this.start = lineBreak + 1;
+                return line;
+            }
+        }, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * @return a lazily scanned Stream of views of every record, where records are separated by blank lines
+     */
+    public Stream<CharSequence> records() {
+        final Iterator<long[]> itr = new RecordIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Iterator<CharSequence>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public CharSequence next() {
+                final long[] bounds = itr.next();
+                return view(bounds[0], bounds[1]);
+            }
+        }, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    private long trimCarriageReturn(final long start, final long end) {
+        return end > start && byteAt(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    public static MappedInput of(final Path path) {
+        return of(path, SEGMENT_BITS);
+    }
+
+    // Map in segments of 2^segmentBits bytes, which tests make small to put segment boundaries within small files
+    static MappedInput of(final Path path, final int segmentBits) {
+        if (segmentBits < 3 || segmentBits > SEGMENT_BITS) {
+            throw new IllegalArgumentException("Bad segment bits: " + segmentBits);
+        }
+        final long segmentSize = 1L << segmentBits;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + segmentSize - 1) >>> segmentBits)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedInput(segments, segmentBits, size);
+        }
+        catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface BoundsConsumer {
+        void accept(long start, long end);
+    }
+
+    // Walks blank-line separated records - a record ends at the line break before a blank line or at the end of input
+    private class RecordIterator
+            implements Iterator<long[]> {
+        private long start = skipBlankLines(0);
+
+        @Override
+        public boolean hasNext() {
+            return this.start < MappedInput.this.size;
+        }
+
+        @Override
+        public long[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long lineStart = this.start;
+            while (true) {
+                final long lineBreak = nextLineBreak(lineStart);
+                final long nextLine = lineBreak + 1;
+                if (nextLine >= MappedInput.this.size || isBlankLine(nextLine)) {
+                    final long[] bounds = {this.start, trimCarriageReturn(lineStart, lineBreak)};
+                    this.start = skipBlankLines(nextLine);
+                    return bounds;
+                }
+                lineStart = nextLine;
+            }
+        }
+
+        private boolean isBlankLine(final long lineStart) {
+            return byteAt(lineStart) == '\n'
+                    || (byteAt(lineStart) == '\r' && lineStart + 1 < MappedInput.this.size && byteAt(lineStart + 1) == '\n');
+        }
+
+        private long skipBlankLines(final long from) {
+            long offset = from;
+            while (offset < MappedInput.this.size && isBlankLine(offset)) {
+                offset = nextLineBreak(offset) + 1;
+            }
+            return offset;
+        }
+    }
+
+    // A window onto the mapping that reads bytes as characters on demand
+    private class View
+            implements CharSequence {
+        private final long start;
+        private final int length;
+
+        private View(final long start, final int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= this.length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) (byteAt(this.start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            if (start < 0 || end > this.length || start > end) {
+                throw new IndexOutOfBoundsException("Bad subsequence: [%d, %d) of %d".formatted(start, end, this.length));
+            }
+            return new View(this.start + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            final char[] chars = new char[this.length];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (byteAt(this.start + i) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+}
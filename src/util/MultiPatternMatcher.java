@@ -0,0 +1,225 @@
+package util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Finds the first and last of a fixed set of ASCII patterns in text, by Aho-Corasick. The patterns are compiled once
+ * into a pair of automata - one over the patterns, and one over the patterns reversed - each held as a flat
+ * transition table. A forward scan finds the first match, a backward scan with the reversed automaton finds the last,
+ * and neither allocates or backtracks
+ */
+public class MultiPatternMatcher {
+
+    /**
+     * Returned when no pattern matches
+     */
+    public static final int NO_MATCH = -1;
+
+    private static final int ALPHABET = 128;
+
+    private final Automaton forward;
+    private final Automaton reversed;
+    private final int maxLength;
+
+    private MultiPatternMatcher(final Automaton forward, final Automaton reversed, final int maxLength) {
+        this.forward = forward;
+        this.reversed = reversed;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return value of the pattern matching at the least start in {@code [from, to)} of {@code text}, preferring the
+     * longest pattern at that start, or {@link #NO_MATCH}
+     */
+    public int first(final CharSequence text, final int from, final int to) {
+        int state = 0;
+        int bestStart = Integer.MAX_VALUE;
+        int bestValue = NO_MATCH;
+        int limit = to;
+        for (int i = from; i < limit; i++) {
+            state = this.forward.step(state, text.charAt(i));
+            final int length = this.forward.lengths[state];
+            if (length > 0 && i - length + 1 <= bestStart) {
+                bestStart = i - length + 1;
+                bestValue = this.forward.values[state];
+                // a match is found at its end, so any match starting at or before this one ends within the longest
+                // pattern from here
+                limit = (int) Math.min(to, (long) bestStart + this.maxLength);
+            }
+        }
+        return bestValue;
+    }
+
+    /**
+     * @return value of the pattern matching at the greatest start in {@code [from, to)} of {@code text}, preferring
+     * the longest pattern at that start, or {@link #NO_MATCH}
+     */
+    public int last(final CharSequence text, final int from, final int to) {
+        // scanning backwards, the reversed automaton finds each match at its start
+        int state = 0;
+        for (int i = to - 1; i >= from; i--) {
+            state = this.reversed.step(state, text.charAt(i));
+            if (this.reversed.lengths[state] > 0) {
+                return this.reversed.values[state];
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * @return value of the pattern matching at the least start in {@code [from, to)} of {@code input}, read as ASCII,
+     * preferring the longest pattern at that start, or {@link #NO_MATCH}
+     */
+    public int first(final MappedInput input, final long from, final long to) {
+        int state = 0;
+        long bestStart = Long.MAX_VALUE;
+        int bestValue = NO_MATCH;
+        long limit = to;
+        // a word of input at a time, stepping through its bytes from the lowest addressed
+        for (long base = from; base < limit; base += ByteWords.BYTES) {
+            final long word = input.longAt(base);
+            for (int b = 0; b < ByteWords.BYTES && base + b < limit; b++) {
+                state = this.forward.step(state, ByteWords.byteAt(word, b));
+                final int length = this.forward.lengths[state];
+                if (length > 0 && base + b - length + 1 <= bestStart) {
+                    bestStart = base + b - length + 1;
+                    bestValue = this.forward.values[state];
+                    limit = Math.min(to, bestStart + this.maxLength);
+                }
+            }
+        }
+        return bestValue;
+    }
+
+    /**
+     * @return value of the pattern matching at the greatest start in {@code [from, to)} of {@code input}, read as
+     * ASCII, preferring the longest pattern at that start, or {@link #NO_MATCH}
+     */
+    public int last(final MappedInput input, final long from, final long to) {
+        int state = 0;
+        // a word of input at a time, stepping through its bytes from the highest addressed
+        for (long end = to; end > from; end -= ByteWords.BYTES) {
+            final long base = Math.max(from, end - ByteWords.BYTES);
+            final long word = input.longAt(base);
+            for (int b = (int) (end - base) - 1; b >= 0; b--) {
+                state = this.reversed.step(state, ByteWords.byteAt(word, b));
+                if (this.reversed.lengths[state] > 0) {
+                    return this.reversed.values[state];
+                }
+            }
+        }
+        return NO_MATCH;
+    }
+
+    public int first(final CharSequence text) {
+        return first(text, 0, text.length());
+    }
+
+    public int last(final CharSequence text) {
+        return last(text, 0, text.length());
+    }
+
+    /**
+     * @param patterns the non-empty ASCII patterns to match, each mapped to the non-negative value reported for it
+     */
+    public static MultiPatternMatcher of(final Map<String, Integer> patterns) {
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("No patterns");
+        }
+        int maxLength = 0;
+        for (final Map.Entry<String, Integer> entry : patterns.entrySet()) {
+            final String pattern = entry.getKey();
+            if (pattern.isEmpty() || !pattern.chars().allMatch(c -> c < ALPHABET) || entry.getValue() < 0) {
+                throw new IllegalArgumentException("Bad pattern: " + entry);
+            }
+            maxLength = Math.max(maxLength, pattern.length());
+        }
+        return new MultiPatternMatcher(
+                Automaton.build(patterns, false),
+                Automaton.build(patterns, true),
+                maxLength);
+    }
+
+    // Trie of the patterns completed into a DFA by failure links. Each state records the longest pattern that ends
+    // there, either its own or one of its suffixes
+    private static class Automaton {
+        private final int[] transitions;
+        private final int[] lengths;
+        private final int[] values;
+
+        private Automaton(final int[] transitions, final int[] lengths, final int[] values) {
+            this.transitions = transitions;
+            this.lengths = lengths;
+            this.values = values;
+        }
+
+        // anything outside ASCII matches nothing
+        private int step(final int state, final int c) {
+            return c < ALPHABET ? this.transitions[state * ALPHABET + c] : 0;
+        }
+
+        private static Automaton build(final Map<String, Integer> patterns, final boolean reverse) {
+            final int maxStates = 1 + patterns.keySet().stream().mapToInt(String::length).sum();
+            final int[] transitions = new int[maxStates * ALPHABET];
+            final int[] lengths = new int[maxStates];
+            final int[] values = new int[maxStates];
+            Arrays.fill(transitions, -1);
+            Arrays.fill(values, NO_MATCH);
+
+            // the trie, with -1 for missing edges
+            int numStates = 1;
+            for (final Map.Entry<String, Integer> entry : patterns.entrySet()) {
+                final String pattern = reverse ? new StringBuilder(entry.getKey()).reverse().toString() : entry.getKey();
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    final int edge = state * ALPHABET + pattern.charAt(i);
+                    if (transitions[edge] < 0) {
+                        transitions[edge] = numStates++;
+                    }
+                    state = transitions[edge];
+                }
+                lengths[state] = pattern.length();
+                values[state] = entry.getValue();
+            }
+
+            // breadth first, so every state's failure target is complete before the state itself
+            final int[] fail = new int[numStates];
+            final Deque<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                if (transitions[c] < 0) {
+                    transitions[c] = 0;
+                }
+                else {
+                    fail[transitions[c]] = 0;
+                    queue.add(transitions[c]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                final int state = queue.poll();
+                if (lengths[state] == 0) {
+                    lengths[state] = lengths[fail[state]];
+                    values[state] = values[fail[state]];
+                }
+                for (int c = 0; c < ALPHABET; c++) {
+                    final int edge = state * ALPHABET + c;
+                    final int fallback = transitions[fail[state] * ALPHABET + c];
+                    if (transitions[edge] < 0) {
+                        transitions[edge] = fallback;
+                    }
+                    else {
+                        fail[transitions[edge]] = fallback;
+                        queue.add(transitions[edge]);
+                    }
+                }
+            }
+
+            return new Automaton(
+                    Arrays.copyOf(transitions, numStates * ALPHABET),
+                    Arrays.copyOf(lengths, numStates),
+                    Arrays.copyOf(values, numStates));
+        }
+    }
+}
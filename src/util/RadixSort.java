@@ -0,0 +1,147 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Least significant digit radix sorts over primitive arrays. These are stable and take linear time in the number of
+ * elements, with one pass per digit of the keys rather than a comparison per element pair
+ */
+public class RadixSort {
+
+    private static final int DIGIT_BITS = 12;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sort {@code keys} ascending, moving each element of {@code values} along with the key at the same index.
+     * Keys must be non-negative and less than {@code 2^keyBits}
+     *
+     * @throws IllegalArgumentException if the arrays differ in length or a key is out of range
+     */
+    public static void sortByKey(final int[] keys, final long[] values, final int keyBits) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Mismatched lengths: %d, %d".formatted(keys.length, values.length));
+        }
+        if (keyBits < 0 || keyBits > 31) {
+            throw new IllegalArgumentException("Bad key bits: " + keyBits);
+        }
+        for (final int key : keys) {
+            // a key in range has no bits set at or above keyBits, which also rules out negative keys
+            if (key >>> keyBits != 0) {
+                throw new IllegalArgumentException("Key out of range: " + key);
+            }
+        }
+
+        int[] srcKeys = keys;
+        long[] srcValues = values;
+        int[] dstKeys = new int[keys.length];
+        long[] dstValues = new long[values.length];
+        final int[] offsets = new int[RADIX];
+
+        for (int shift = 0; shift < keyBits; shift += DIGIT_BITS) {
+            // count each digit, then turn the counts into the first index of each digit's bucket
+            Arrays.fill(offsets, 0);
+            for (final int key : srcKeys) {
+                offsets[(key >>> shift) & DIGIT_MASK]++;
+            }
+            int next = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                final int count = offsets[digit];
+                offsets[digit] = next;
+                next += count;
+            }
+
+            for (int i = 0; i < srcKeys.length; i++) {
+                final int dst = offsets[(srcKeys[i] >>> shift) & DIGIT_MASK]++;
+                dstKeys[dst] = srcKeys[i];
+                dstValues[dst] = srcValues[i];
+            }
+
+            final int[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            final long[] swapValues = srcValues;
+            srcValues = dstValues;
+            dstValues = swapValues;
+        }
+
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, keys.length);
+            System.arraycopy(srcValues, 0, values, 0, values.length);
+        }
+    }
+
+    /**
+     * Sort {@code keys} ascending as signed longs, moving each element of {@code values} along with the key at the
+     * same index. Passes over digits that every key shares are skipped, so keys spanning a small range sort in few
+     * passes
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static void sortByKey(final long[] keys, final int[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Mismatched lengths: %d, %d".formatted(keys.length, values.length));
+        }
+
+        long[] srcKeys = keys;
+        int[] srcValues = values;
+        long[] dstKeys = new long[keys.length];
+        int[] dstValues = new int[values.length];
+        final int[] offsets = new int[RADIX];
+
+        for (int shift = 0; shift < Long.SIZE; shift += DIGIT_BITS) {
+            Arrays.fill(offsets, 0);
+            for (final long key : srcKeys) {
+                offsets[digit(key, shift)]++;
+            }
+            // a digit shared by every key leaves the order as it is
+            if (srcKeys.length == 0 || offsets[digit(srcKeys[0], shift)] == srcKeys.length) {
+                continue;
+            }
+            int next = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                final int count = offsets[digit];
+                offsets[digit] = next;
+                next += count;
+            }
+
+            for (int i = 0; i < srcKeys.length; i++) {
+                final int dst = offsets[digit(srcKeys[i], shift)]++;
+                dstKeys[dst] = srcKeys[i];
+                dstValues[dst] = srcValues[i];
+            }
+
+            final long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            final int[] swapValues = srcValues;
+            srcValues = dstValues;
+            dstValues = swapValues;
+        }
+
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, keys.length);
+            System.arraycopy(srcValues, 0, values, 0, values.length);
+        }
+    }
+
+    /**
+     * @return the indices of {@code keys} in ascending order of key, with equal keys in index order
+     */
+    public static int[] sortedOrder(final long[] keys) {
+        final int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        sortByKey(keys.clone(), order);
+        return order;
+    }
+
+    // Digit of a signed key, with the sign bit flipped so that negative keys order before positive ones
+    private static int digit(final long key, final int shift) {
+        return (int) ((key ^ Long.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+}
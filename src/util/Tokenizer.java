@@ -0,0 +1,194 @@
+package util;
+
+import java.nio.CharBuffer;
+
+/**
+ * A cursor over a {@link CharSequence} for hand-parsing puzzle input without regexes or splitting. Numbers are read
+ * straight into primitives and tokens are handed out as views over the source, so parsing does not copy the input.
+ * Every read skips any whitespace before it. A Tokenizer can be {@link #reset(CharSequence)} onto another source,
+ * so one instance can parse every line of an input
+ */
+public class Tokenizer {
+
+    private CharSequence source;
+    private int pos;
+
+    private Tokenizer(final CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * Point this Tokenizer at the start of a new source
+     */
+    public Tokenizer reset(final CharSequence source) {
+        this.source = source;
+        this.pos = 0;
+        return this;
+    }
+
+    /**
+     * @return index of the next character to be read
+     */
+    public int position() {
+        return this.pos;
+    }
+
+    /**
+     * @return is there anything but whitespace left to read
+     */
+    public boolean hasNext() {
+        skipWhitespace();
+        return this.pos < this.source.length();
+    }
+
+    /**
+     * @return the next non-whitespace character, without consuming it
+     */
+    public char peek() {
+        skipWhitespace();
+        if (this.pos >= this.source.length()) {
+            throw error("a character");
+        }
+        return this.source.charAt(this.pos);
+    }
+
+    /**
+     * Move past any whitespace
+     */
+    public Tokenizer skipWhitespace() {
+        final int length = this.source.length();
+        while (this.pos < length && this.source.charAt(this.pos) <= ' ') {
+            this.pos++;
+        }
+        return this;
+    }
+
+    /**
+     * Consume the next non-whitespace character
+     */
+    public char nextChar() {
+        final char c = peek();
+        this.pos++;
+        return c;
+    }
+
+    /**
+     * Consume the next non-whitespace character, which must be {@code expected}
+     */
+    public Tokenizer expect(final char expected) {
+        if (!skipIf(expected)) {
+            throw error("'" + expected + "'");
+        }
+        return this;
+    }
+
+    /**
+     * Consume the next non-whitespace characters, which must be {@code expected}
+     */
+    public Tokenizer expect(final String expected) {
+        skipWhitespace();
+        final int end = this.pos + expected.length();
+        if (end > this.source.length()) {
+            throw error("\"" + expected + "\"");
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (this.source.charAt(this.pos + i) != expected.charAt(i)) {
+                throw error("\"" + expected + "\"");
+            }
+        }
+        this.pos = end;
+        return this;
+    }
+
+    /**
+     * Consume the next non-whitespace character only if it is {@code expected}
+     *
+     * @return was the character consumed
+     */
+    public boolean skipIf(final char expected) {
+        skipWhitespace();
+        if (this.pos < this.source.length() && this.source.charAt(this.pos) == expected) {
+            this.pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume a run of non-whitespace characters
+     *
+     * @return a view of the run that shares the source's storage
+     */
+    public CharSequence nextToken() {
+        skipWhitespace();
+        final int start = this.pos;
+        final int length = this.source.length();
+        while (this.pos < length && this.source.charAt(this.pos) > ' ') {
+            this.pos++;
+        }
+        if (start == this.pos) {
+            throw error("a token");
+        }
+        return CharBuffer.wrap(this.source, start, this.pos);
+    }
+
+    /**
+     * Consume an optionally negative decimal int
+     */
+    public int nextInt() {
+        final int start = this.pos;
+        final long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            this.pos = start;
+            throw error("an int");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Consume an optionally negative decimal long
+     */
+    public long nextLong() {
+        skipWhitespace();
+        final int length = this.source.length();
+        final int start = this.pos;
+        final boolean negative = this.pos < length && this.source.charAt(this.pos) == '-';
+        if (negative) {
+            this.pos++;
+        }
+
+        // Accumulate negatively, as Long.parseLong does, so that Long.MIN_VALUE can be read
+        long value = 0;
+        final int digitsStart = this.pos;
+        while (this.pos < length) {
+            final int digit = this.source.charAt(this.pos) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                this.pos = start;
+                throw error("a long");
+            }
+            value = value * 10 - digit;
+            this.pos++;
+        }
+
+        if (this.pos == digitsStart) {
+            this.pos = start;
+            throw error("a number");
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            this.pos = start;
+            throw error("a long");
+        }
+        return negative ? value : -value;
+    }
+
+    private IllegalStateException error(final String expected) {
+        return new IllegalStateException("Expected %s at %d of: %s".formatted(expected, this.pos, this.source));
+    }
+
+    public static Tokenizer of(final CharSequence source) {
+        return new Tokenizer(source);
+    }
+}
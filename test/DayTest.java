@@ -0,0 +1,548 @@
+import util.MappedInput;
+import util.Pair;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class DayTest {
+
+    private static final String ALMANAC_TEST = """
+            seeds: 79 14 55 13
+
+            seed-to-soil map:
+            50 98 2
+            52 50 48
+
+            soil-to-fertilizer map:
+            0 15 37
+            37 52 2
+            39 0 15
+
+            fertilizer-to-water map:
+            49 53 8
+            0 11 42
+            42 0 7
+            57 7 4
+
+            water-to-light map:
+            88 18 7
+            18 25 70
+
+            light-to-temperature map:
+            45 77 23
+            81 45 19
+            68 64 13
+
+            temperature-to-humidity map:
+            0 69 1
+            1 0 69
+
+            humidity-to-location map:
+            60 56 37
+            56 93 4
+            """;
+
+    private static final List<String> CALIBRATION_TEST = List.of(
+            "two1nine",
+            "eightwothree",
+            "abcone2threexyz",
+            "xtwone3four",
+            "4nineeightseven2",
+            "zoneight234",
+            "7pqrstsixteen");
+
+    @Test
+    void testDay01() throws IOException {
+        assert Day01.part2(CALIBRATION_TEST) == 281;
+
+        // blank lines, and lines of a lone carriage return, count as zero in every path, while a line without any
+        // number is an error
+        final List<String> blanks = new ArrayList<>(CALIBRATION_TEST);
+        blanks.add(3, "");
+        blanks.add(5, "\r");
+        blanks.add("");
+        assert Day01.part2(blanks) == 281;
+        assert Day01.part1(List.of("1abc2", "", "\r", "a1b")) == 23;
+        assert mapped("1abc2\n\n\r\na1b", Day01::part1) == 23;
+        assert mapped(String.join("\n", blanks), Day01::part2) == 281;
+        assert mapped("\r\n" + String.join("\r\n\r\n", CALIBRATION_TEST) + "\r\n", Day01::part2) == 281;
+        assert fails(IllegalStateException.class, () -> Day01.part2(List.of("1", "abc")));
+        assert fails(IllegalStateException.class, () -> mapped("1\n \n", Day01::part2));
+    }
+
+    @Test
+    void testDay01Mapped() {
+        // the word-at-a-time walk against the line at a time parts, on random lines with CRLF and blank lines, and
+        // with the input cut into chunks at random line starts
+        final Random random = new Random(1);
+        final String[] pieces = {"1", "7", "one", "eight", "two", "x", "nin", "e"};
+        for (int trial = 0; trial < 200; trial++) {
+            final List<String> lines = new ArrayList<>();
+            for (int line = random.nextInt(12); line > 0; line--) {
+                final StringBuilder text = new StringBuilder();
+                if (random.nextInt(5) > 0) {
+                    for (int piece = random.nextInt(6); piece >= 0; piece--) {
+                        text.append(pieces[random.nextInt(pieces.length)]);
+                    }
+                    text.insert(random.nextInt(text.length() + 1), random.nextInt(10));
+                }
+                lines.add(text.toString());
+            }
+            final String lineBreak = random.nextBoolean() ? "\n" : "\r\n";
+            final String text = String.join(lineBreak, lines) + (random.nextBoolean() ? lineBreak : "");
+            final long part1 = Day01.part1(lines);
+            final long part2 = Day01.part2(lines);
+
+            assert mapped(text, Day01::part1) == part1;
+            assert mapped(text, Day01::part2) == part2;
+            assert Arrays.equals(mapped(text, Day01::bothParts), new long[]{part1, part2});
+            final long[] chunked = mapped(text, input -> {
+                long from = 0;
+                final long[] sums = new long[2];
+                while (from < input.size()) {
+                    final long to = Math.min(input.size(), input.nextLineBreak(from + random.nextInt(30)) + 1);
+                    final long[] chunk = Day01.sumCalibrationValues(input, from, to, true);
+                    sums[0] += chunk[0];
+                    sums[1] += chunk[1];
+                    from = to;
+                }
+                return sums;
+            });
+            assert Arrays.equals(chunked, new long[]{part1, part2});
+        }
+    }
+
+    @Test
+    void testDay02() {
+        final Day02.Games sample = Day02.parse(List.of(
+                "Game 1: 3 blue, 4 red; 1 red, 2 green, 6 blue; 2 green",
+                "Game 2: 1 blue, 2 green; 3 green, 4 blue, 1 red; 1 green, 1 blue",
+                "Game 3: 8 green, 6 blue, 20 red; 5 blue, 4 red, 13 green; 5 green, 1 red",
+                "Game 4: 1 green, 3 red, 6 blue; 3 green, 6 red; 3 green, 15 blue, 14 red",
+                "Game 5: 6 red, 1 blue, 3 green; 2 blue, 1 red, 2 green"));
+        assert Day02.part1(sample) == 8;
+        assert Day02.part2(sample) == 2286;
+        assert Day02.BagIndex.of(sample).possibleIdSum(new Day02.Bag(12, 13, 14)) == 8;
+
+        // the index against checking every game, for bags below, at and above the maxima that the games show
+        final Random random = new Random(2);
+        for (int trial = 0; trial < 100; trial++) {
+            final List<String> lines = new ArrayList<>();
+            for (int game = 1 + random.nextInt(30); game > 0; game--) {
+                final StringBuilder line = new StringBuilder("Game " + (1 + random.nextInt(100)) + ":");
+                for (int draw = random.nextInt(6); draw >= 0; draw--) {
+                    line.append(' ').append(random.nextInt(trial % 20 + 1))
+                            .append(' ').append(List.of("red", "green", "blue").get(random.nextInt(3)))
+                            .append(draw == 0 ? "" : random.nextBoolean() ? "," : ";");
+                }
+                lines.add(line.toString());
+            }
+            final Day02.Games games = Day02.parse(lines);
+            final Day02.BagIndex index = Day02.BagIndex.of(games);
+            // past any count drawn
+            final int most = trial % 20 + 2;
+            final List<Day02.Bag> bags = new ArrayList<>();
+            for (int bag = 0; bag < 50; bag++) {
+                bags.add(new Day02.Bag(random.nextInt(most + 1) - 1, random.nextInt(most + 1) - 1,
+                        random.nextInt(most + 1) - 1));
+            }
+            bags.add(new Day02.Bag(most, most, most));
+            bags.add(new Day02.Bag(
+                    IntStream.of(games.maxRed()).max().orElse(0),
+                    IntStream.of(games.maxGreen()).max().orElse(0),
+                    IntStream.of(games.maxBlue()).max().orElse(0)));
+            final long[] sums = index.possibleIdSums(bags);
+            for (int bag = 0; bag < bags.size(); bag++) {
+                assert index.possibleIdSum(bags.get(bag)) == games.possibleIdSum(bags.get(bag));
+                assert sums[bag] == games.possibleIdSum(bags.get(bag));
+            }
+            assert sums[bags.size() - 1] == Arrays.stream(games.ids()).asLongStream().sum();
+        }
+
+        // too many distinct maxima to index - 257 classes per colour is more cells than the index allows
+        final int[] ids = new int[256];
+        final int[] counts = new int[256];
+        for (int game = 0; game < ids.length; game++) {
+            ids[game] = game + 1;
+            counts[game] = game;
+        }
+        assert fails(IllegalArgumentException.class,
+                () -> Day02.BagIndex.of(new Day02.Games(ids, counts, counts, counts)));
+    }
+
+    @Test
+    void testDay03() {
+        final Day03.Schematic sample = Day03.parse(List.of(
+                "467..114..",
+                "...*......",
+                "..35..633.",
+                "......#...",
+                "617*......",
+                ".....+.58.",
+                "..592.....",
+                "......755.",
+                "...$.*....",
+                ".664.598.."));
+        assert Day03.part1(sample.grid(), sample.partNumbers()) == 4361;
+        assert Day03.part2(sample.grid(), sample.charPoints(), sample.partNumbers()) == 467835;
+
+        // numbers at the edges, touching a symbol only diagonally or not at all, and a gear with three numbers, which
+        // has no ratio
+        final Day03.Schematic edges = Day03.parse(List.of(
+                "12.3",
+                "..*.",
+                "4*5.",
+                "...9"));
+        assert Day03.part1(edges.grid(), edges.partNumbers()) == 12 + 3 + 4 + 5;
+        assert Day03.part2(edges.grid(), edges.charPoints(), edges.partNumbers()) == 4 * 5;
+    }
+
+    @Test
+    void testDay04() {
+        final Day04.Cards sample = Day04.parse(List.of(
+                "Card 1: 41 48 83 86 17 | 83 86  6 31 17  9 48 53",
+                "Card 2: 13 32 20 16 61 | 61 30 68 82 17 32 24 19",
+                "Card 3:  1 21 53 59 44 | 69 82 63 72 16 21 14  1",
+                "Card 4: 41 92 73 84 69 | 59 84 76 51 58  5 54 83",
+                "Card 5: 87 83 26 28 32 | 88 30 70 12 93 22 82 36",
+                "Card 6: 31 18 13 56 72 | 74 77 10 23 35 67 36 11"));
+        assert Day04.part1(sample) == 13;
+        assert Day04.part2(sample) == 30;
+
+        // numbers in the second and third words of the bitsets, on either side and on one side only
+        final Day04.Cards wide = Day04.parse(List.of(
+                "Card 1: 63 64 130 5 | 130 64 6 63",
+                "Card 2: 200 | 1 2 3",
+                "Card 3: 1 | 1 200"));
+        assert Arrays.equals(wide.matches(), new int[]{3, 0, 1});
+
+        // matches against counting common numbers directly, on random cards
+        final Random random = new Random(4);
+        for (int trial = 0; trial < 100; trial++) {
+            final List<String> lines = new ArrayList<>();
+            final int[] expected = new int[1 + random.nextInt(10)];
+            for (int card = 0; card < expected.length; card++) {
+                final Set<Integer> winners = new HashSet<>();
+                final Set<Integer> numbers = new HashSet<>();
+                for (int i = random.nextInt(10); i >= 0; i--) {
+                    winners.add(random.nextInt(300));
+                    numbers.add(random.nextInt(300));
+                }
+                final StringBuilder line = new StringBuilder("Card " + (card + 1) + ":");
+                winners.forEach(number -> line.append(' ').append(number));
+                line.append(" |");
+                numbers.forEach(number -> line.append(' ').append(number));
+                lines.add(line.toString());
+                numbers.retainAll(winners);
+                expected[card] = numbers.size();
+            }
+            assert Arrays.equals(Day04.parse(lines).matches(), expected);
+        }
+
+        // card ids must run from 1 in order
+        assert fails(IllegalStateException.class, () -> Day04.parse(List.of("Card 2: 1 | 1")));
+        assert fails(IllegalStateException.class, () -> Day04.parse(List.of("Card 1: 1 | 1", "Card 3: 1 | 1")));
+        assert fails(IllegalStateException.class, () -> Day04.parse(List.of("Card 1: 1 | 1", "Card 1: 1 | 1")));
+        assert fails(IllegalStateException.class, () -> Day04.parse(List.of("Card 1: -1 | 1")));
+    }
+
+    @Test
+    void testDay05() {
+        final Pair<List<Long>, Day05.Almanac> input = Day05.parseInput(ALMANAC_TEST);
+        assert Day05.part1(input.right(), input.left()) == 35;
+        assert Day05.part2_1(input.right(), input.left()) == 46;
+        assert Day05.part2_2(input.right(), input.left()) == 46;
+        assert Day05.part2_3(input.right(), input.left()) == 46;
+
+        // the streaming parser reads the same almanac from a reader, with CRLF line endings, and without a final
+        // line break
+        final String crlf = ALMANAC_TEST.strip().replace("\n", "\r\n");
+        final Pair<List<Long>, Day05.Almanac> streamed =
+                Day05.parseInput(new BufferedReader(new StringReader(crlf)));
+        assert streamed.left().equals(input.left());
+        assert streamed.right().seedToLocation().toString().equals(input.right().seedToLocation().toString());
+
+        // ranges that would wrap around a long are rejected rather than mapped
+        assert fails(IllegalStateException.class,
+                () -> Day05.parseInput("seeds: 1 2\n\nseed-to-soil map:\n0 9223372036854775800 10\n"));
+        assert fails(IllegalStateException.class,
+                () -> Day05.parseInput("seeds: 1 2\n\nseed-to-soil map:\n9223372036854775800 0 10\n"));
+        assert fails(IllegalStateException.class,
+                () -> Day05.parseInput("seeds: 1 2\n\nseed-to-soil map:\n0 5 -1\n"));
+
+        // every solution against evaluating each seed in turn, on random almanacs
+        final Random random = new Random(5);
+        for (int trial = 0; trial < 50; trial++) {
+            final StringBuilder almanac = new StringBuilder("seeds:");
+            final List<Long> seeds = new ArrayList<>();
+            for (int range = 1 + random.nextInt(4); range > 0; range--) {
+                final long start = random.nextInt(200);
+                final long length = 1 + random.nextInt(30);
+                seeds.add(start);
+                seeds.add(length);
+                almanac.append(' ').append(start).append(' ').append(length);
+            }
+            almanac.append('\n');
+            for (Day05.Type type = Day05.Type.SEED; type.hasNext(); type = type.next()) {
+                almanac.append("\n%s-to-%s map:\n".formatted(
+                        type.name().toLowerCase(), type.next().name().toLowerCase()));
+                // disjoint source ranges in a random order
+                final List<String> entries = new ArrayList<>();
+                long next = random.nextInt(10);
+                for (int entry = random.nextInt(5); entry > 0; entry--) {
+                    final long length = 1 + random.nextInt(40);
+                    entries.add("%d %d %d".formatted(random.nextInt(250), next, length));
+                    next += length + random.nextInt(3);
+                }
+                Collections.shuffle(entries, random);
+                entries.forEach(entry -> almanac.append(entry).append('\n'));
+            }
+
+            final Pair<List<Long>, Day05.Almanac> parsed = Day05.parseInput(almanac.toString());
+            long expected = Long.MAX_VALUE;
+            for (int i = 0; i < seeds.size(); i += 2) {
+                for (long seed = seeds.get(i); seed < seeds.get(i) + seeds.get(i + 1); seed++) {
+                    long value = seed;
+                    for (Day05.Type type = Day05.Type.SEED; type.hasNext(); type = type.next()) {
+                        value = parsed.right().eval(type, value);
+                    }
+                    expected = Math.min(expected, value);
+                }
+            }
+            assert Day05.part2_1(parsed.right(), parsed.left()) == expected;
+            assert Day05.part2_2(parsed.right(), parsed.left()) == expected;
+            assert Day05.part2_3(parsed.right(), parsed.left()) == expected;
+        }
+    }
+
+    @Test
+    void testDay06() {
+        final List<Day06.Race> races = Day06.parse("Time:      7  15   30\nDistance:  9  40  200\n");
+        assert Day06.part1(races) == 288;
+        assert Day06.part2(races) == 71503;
+
+        // times and distances beyond an int
+        final List<Day06.Race> wide = Day06.parse("Time: 5000000000 7\nDistance: 6000000000000000000 9\n");
+        assert wide.get(0).equals(new Day06.Race(5_000_000_000L, 6_000_000_000_000_000_000L));
+        final long wideWins = new Day06.BigRace(BigInteger.valueOf(5_000_000_000L),
+                BigInteger.valueOf(6_000_000_000_000_000_000L)).numWins().longValueExact();
+        assert Day06.part1(wide) == wideWins * 4;
+
+        // both solvers against trying every hold, including races that cannot be won and ties that do not win
+        for (long time = 0; time <= 60; time++) {
+            for (long distance = 0; distance <= time * time / 4 + 1; distance++) {
+                long expected = 0;
+                for (long hold = 0; hold <= time; hold++) {
+                    expected += hold * (time - hold) > distance ? 1 : 0;
+                }
+                assert Day06.Race.numWins(time, distance) == expected;
+                assert new Day06.BigRace(BigInteger.valueOf(time), BigInteger.valueOf(distance)).numWins()
+                        .longValueExact() == expected;
+            }
+        }
+
+        // races whose best distance overflows a long, with distances either side of the winning threshold
+        final Random random = new Random(6);
+        for (int trial = 0; trial < 1000; trial++) {
+            final long time = Long.MAX_VALUE - random.nextInt(1000);
+            final BigInteger hold = BigInteger.valueOf(random.nextLong(time / 2 + 1));
+            final BigInteger best = hold.multiply(BigInteger.valueOf(time).subtract(hold));
+            final long distance = best.min(BigInteger.valueOf(Long.MAX_VALUE)).longValue() - random.nextInt(2);
+            final long expected = Day06.Race.numWins(time, distance);
+            assert new Day06.BigRace(BigInteger.valueOf(time), BigInteger.valueOf(distance)).numWins()
+                    .longValueExact() == expected;
+        }
+        assert Arrays.equals(Day06.numWins(new long[] {7, 15, 30}, new long[] {9, 40, 200}), new long[] {4, 8, 9});
+        assert fails(IllegalArgumentException.class, () -> Day06.numWins(new long[2], new long[1]));
+        assert fails(IllegalArgumentException.class, () -> new Day06.Race(5, -1));
+    }
+
+    @Test
+    void testDay07() {
+        final List<Day07.Play> plays = Day07.parse(List.of("32T3K 765", "T55J5 684", "KK677 28", "KTJJT 220",
+                "QQQJA 483"));
+        assert Day07.part1(plays) == 6440;
+        assert Day07.part2(plays) == 5905;
+        assert plays.get(1).hand().toString().equals("T55J5");
+
+        // identical hands rank in reverse input order, so the earlier takes the higher rank
+        final List<Day07.Play> ties = Day07.parse(List.of("AAAAA 1", "AAAAA 10"));
+        assert Day07.part1(ties) == 1 * 2 + 10 * 1;
+        assert Day07.part2(ties) == 1 * 2 + 10 * 1;
+
+        // a Joker ranks below a Two, but scores as the best card for the hand
+        final Day07.Hand jokers = Day07.Hand.parse("JJJJ2");
+        final Day07.Hand twos = Day07.Hand.parse("22223");
+        assert jokers.pack(Day07.Rules.STANDARD) > twos.pack(Day07.Rules.STANDARD);
+        assert jokers.pack(Day07.Rules.JOKERS) > twos.pack(Day07.Rules.JOKERS);
+        assert Day07.Hand.parse("J2222").pack(Day07.Rules.JOKERS) < Day07.Hand.parse("22222").pack(Day07.Rules.JOKERS);
+        assert fails(IllegalArgumentException.class, () -> Day07.Hand.parse("2345"));
+    }
+
+    @Test
+    void testDay08() {
+        final Day08.Network sample = Day08.parse("""
+                LR
+
+                11A = (11B, XXX)
+                11B = (XXX, 11Z)
+                11Z = (11B, XXX)
+                22A = (22B, XXX)
+                22B = (22C, 22C)
+                22C = (22Z, 22Z)
+                22Z = (22B, 22B)
+                XXX = (XXX, XXX)
+                """);
+        assert Day08.part2(Day08.Graph.compile(sample.nodeMap(), sample.path())) == 6;
+
+        // the cycle solver against walking every ghost a step at a time, on small random networks where ghosts have
+        // several end nodes per cycle and some end nodes before their cycle
+        final Random random = new Random(8);
+        for (int trial = 0; trial < 300; trial++) {
+            final int size = 2 + random.nextInt(12);
+            final String[] names = new String[size];
+            for (int i = 0; i < size; i++) {
+                names[i] = "%02d%c".formatted(i, i == 0 ? 'A' : "AZZX".charAt(random.nextInt(4)));
+            }
+            final StringBuilder network = new StringBuilder();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                network.append(random.nextBoolean() ? 'L' : 'R');
+            }
+            network.append("\n\n");
+            for (final String name : names) {
+                network.append("%s = (%s, %s)\n".formatted(
+                        name, names[random.nextInt(size)], names[random.nextInt(size)]));
+            }
+
+            final Day08.Network parsed = Day08.parse(network.toString());
+            final Day08.Graph graph = Day08.Graph.compile(parsed.nodeMap(), parsed.path());
+            final boolean[] ends = graph.mark(key -> key.endsWith("Z"));
+            final int[] starts = graph.ids(key -> key.endsWith("A"));
+            final List<Day08.Cycle> cycles = new ArrayList<>();
+            for (final int start : starts) {
+                cycles.add(Day08.findCycle(graph, start, ends));
+            }
+            long solved;
+            try {
+                solved = Day08.firstCommonHit(cycles);
+            }
+            catch (final IllegalStateException e) {
+                solved = -1;
+            }
+
+            final int[] nodes = starts.clone();
+            long walked = -1;
+            for (long step = 1; step <= 100_000 && walked < 0; step++) {
+                boolean all = true;
+                for (int i = 0; i < nodes.length; i++) {
+                    nodes[i] = graph.next(nodes[i], (int) ((step - 1) % graph.pathLength()));
+                    all &= ends[nodes[i]];
+                }
+                walked = all ? step : -1;
+            }
+            assert solved == walked;
+
+            // the parallel walker agrees within a window, and walks afresh when run again
+            if (trial < 40) {
+                final long window = Day08.MultiWalker.WINDOW;
+                final long expected = walked <= window ? walked : -1;
+                assert Day08.part2Simulated(graph, window).orElse(-1) == expected;
+                final Day08.MultiWalker walker = new Day08.MultiWalker(graph, starts, ends, ForkJoinPool.commonPool());
+                for (int run = 0; run < 2; run++) {
+                    assert walker.firstCommonHit(window).orElse(-1) == expected;
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDay08PassJumps() {
+        // jumps of any number of passes against walking them a step at a time
+        final Random random = new Random(20);
+        for (int trial = 0; trial < 100; trial++) {
+            final int size = 1 + random.nextInt(10);
+            final StringBuilder network = new StringBuilder();
+            for (int i = 1 + random.nextInt(6); i > 0; i--) {
+                network.append(random.nextBoolean() ? 'L' : 'R');
+            }
+            network.append("\n\n");
+            for (int i = 0; i < size; i++) {
+                network.append("%02dX = (%02dX, %02dX)\n".formatted(i, random.nextInt(size), random.nextInt(size)));
+            }
+            final Day08.Network parsed = Day08.parse(network.toString());
+            final Day08.Graph graph = Day08.Graph.compile(parsed.nodeMap(), parsed.path());
+            final boolean[] ends = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                ends[i] = random.nextInt(4) == 0;
+            }
+            final Day08.PassJumps jumps = Day08.PassJumps.build(graph, ends);
+
+            final int[] starts = new int[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = i;
+            }
+            for (int check = 0; check < 60; check++) {
+                final long passes = check < 40 ? check : random.nextInt(5000);
+                final int[] after = jumps.afterPasses(starts, passes);
+                final long[] firstHits = jumps.firstHits(starts, passes);
+                for (int start = 0; start < size; start++) {
+                    int node = start;
+                    long firstHit = -1;
+                    for (long step = 1; step <= passes * graph.pathLength(); step++) {
+                        node = graph.next(node, (int) ((step - 1) % graph.pathLength()));
+                        firstHit = firstHit < 0 && ends[node] ? step : firstHit;
+                    }
+                    assert jumps.afterPasses(start, passes) == node && after[start] == node;
+                    assert jumps.firstHit(start, passes) == firstHit && firstHits[start] == firstHit;
+                }
+            }
+            assert fails(IllegalArgumentException.class, () -> jumps.afterPasses(0, -1));
+            assert fails(IllegalArgumentException.class, () -> jumps.firstHit(0, Long.MAX_VALUE));
+        }
+    }
+
+    // Apply function to a mapped file of text
+    private static <T> T mapped(final String text, final Function<MappedInput, T> function) {
+        try {
+            final Path path = Files.createTempFile("day01", ".txt");
+            try {
+                Files.writeString(path, text, StandardCharsets.US_ASCII);
+                return function.apply(MappedInput.of(path));
+            }
+            finally {
+                Files.delete(path);
+            }
+        }
+        catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean fails(final Class<? extends RuntimeException> type, final Runnable runnable) {
+        try {
+            runnable.run();
+            return false;
+        }
+        catch (final RuntimeException e) {
+            return type.isInstance(e);
+        }
+    }
+}
@@ -2,12 +2,26 @@ package grid;
 
 import util.Pair;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
 public class GridTest {
 
+    private static final String CHAR_GRID_TEST = """
+            467..114..
+            ...*......
+            ..35..633.
+            """;
+
     private static final String TWO_DIM_TEST = """
             0 0 a
             1 2 b
@@ -41,4 +55,258 @@ public class GridTest {
         assert grid.keySet().stream().flatMap(TwoDimIntPoint::stream).anyMatch(dim -> dim > -6);
         assert !grid.keySet().stream().flatMap(TwoDimIntPoint::stream).allMatch(dim -> dim > 0);
     }
+
+    @Test
+    void testDenseTwoDim() {
+        final TwoDimIntGrid<String> grid = TWO_DIM_TEST
+                .lines()
+                .map(line -> {
+                    final String[] split = line.trim().split("\\s");
+                    return new Pair<>(
+                            Point.of(
+                                    Integer.parseInt(split[0]),
+                                    Integer.parseInt(split[1])),
+                            split[2]);
+                })
+                .collect(TwoDimIntGrid.densePairCollector());
+
+        assert grid.size() == 3;
+        assert Objects.equals(grid.get(0, 0), "a");
+        assert Objects.equals(grid.get(Point.of(1, 2)), "b");
+        assert Objects.equals(grid.get(-5, 3), "c");
+        assert Objects.isNull(grid.get(4, 3));
+        assert Objects.isNull(grid.get(100, -100));
+        assert grid.getMinX() == -5;
+        assert grid.getMaxY() == 3;
+
+        // iteration is in canonical row-major order
+        assert grid.keySet().stream().toList().equals(grid.keySet().stream().sorted().toList());
+
+        // null nodes are still present keys
+        grid.put(7, 7, null);
+        assert grid.size() == 4;
+        assert grid.containsKey(7, 7);
+        assert grid.containsKey(Point.of(7, 7));
+        assert !grid.containsKey(6, 7);
+
+        assert Objects.equals(grid.remove(Point.of(0, 0)), "a");
+        assert grid.size() == 3;
+        assert !grid.containsKey(0, 0);
+
+        // an entry whose cell has been removed cannot be written through
+        final Map.Entry<TwoDimIntPoint, String> removed = grid.entrySet().iterator().next();
+        grid.remove(removed.getKey());
+        assert throwsIllegalState(() -> removed.setValue("z"));
+        assert !grid.containsKey(removed.getKey());
+
+        final TwoDimIntGrid<String> hashed = TwoDimIntGrid.of();
+        hashed.putAll(grid);
+        assert hashed.equals(grid);
+        assert grid.equals(hashed);
+    }
+
+    @Test
+    void testCharGrid() {
+        final CharGrid chars = CharGrid.of(CHAR_GRID_TEST);
+
+        assert chars.width() == 10;
+        assert chars.height() == 3;
+        assert chars.charAt(0, 0) == '4';
+        assert chars.charAtOrDefault(10, 0, '#') == '#';
+        assert chars.isSymbol(3, 1);
+        assert chars.isDigit(2, 2);
+        assert chars.isBlank(0, 1);
+        assert !chars.isDigit(-1, 0);
+        assert chars.count(CharGrid.Cell.DIGIT) == 11;
+        assert chars.count(CharGrid.Cell.SYMBOL) == 1;
+        assert chars.row(2, 2, 4).toString().equals("35");
+
+        final TwoDimIntGrid<Character> grid = chars.toGrid();
+        assert grid.size() == 30;
+        assert grid.get(3, 1) == '*';
+        assert CharGrid.from(grid, ' ').row(0).toString().equals("467..114..");
+    }
+
+    @Test
+    void testNeighbours() {
+        final TwoDimIntGrid<Character> grid = CharGrid.of(CHAR_GRID_TEST).toGrid();
+
+        final Set<TwoDimIntPoint> cardinals = new HashSet<>();
+        grid.forEachCardinalNeighbour(Point.of(0, 0), (point, node) -> cardinals.add(point));
+        assert cardinals.equals(Set.of(Point.of(1, 0), Point.of(0, 1)));
+
+        final Set<TwoDimIntPoint> orthogonals = new HashSet<>();
+        grid.forEachOrthogonalNeighbour(3, 1, (x, y) -> orthogonals.add(Point.of(x, y)));
+        assert orthogonals.size() == 8;
+        assert orthogonals.stream().allMatch(point -> point.isOrthogonal(Point.of(3, 1)));
+        assert !orthogonals.contains(Point.of(3, 1));
+
+        assert grid.anyOrthogonalNeighbour(2, 2, (x, y) -> grid.get(x, y) == '*');
+        assert !grid.anyCardinalNeighbour(2, 2, (x, y) -> grid.get(x, y) == '*');
+
+        final ThreeDimIntGrid<String> cube = ThreeDimIntGrid.of();
+        for (int z = -1; z <= 1; z++) {
+            for (int y = -1; y <= 1; y++) {
+                for (int x = -1; x <= 1; x++) {
+                    cube.put(x, y, z, "c");
+                }
+            }
+        }
+        final Set<ThreeDimIntPoint> cubeCardinals = new HashSet<>();
+        cube.forEachCardinalNeighbour(Point.of(0, 0, 0), (point, node) -> cubeCardinals.add(point));
+        assert cubeCardinals.size() == 6;
+        assert cubeCardinals.stream().allMatch(point -> point.isCardinal(Point.of(0, 0, 0)));
+
+        final Set<ThreeDimIntPoint> cubeOrthogonals = new HashSet<>();
+        cube.forEachOrthogonalNeighbour(0, 0, 0, (x, y, z) -> cubeOrthogonals.add(Point.of(x, y, z)));
+        assert cubeOrthogonals.size() == 26;
+    }
+
+    @Test
+    void testSparse() {
+        final TwoDimIntGrid<Integer> grid = TwoDimIntGrid.sparse();
+        final ThreeDimIntGrid<Integer> cube = ThreeDimIntGrid.sparse();
+        final Map<TwoDimIntPoint, Integer> expected = new HashMap<>();
+        final Map<ThreeDimIntPoint, Integer> expectedCube = new HashMap<>();
+        final Random random = new Random(2023);
+
+        for (int i = 0; i < 20_000; i++) {
+            final int x = random.nextInt(200) - 100;
+            final int y = random.nextBoolean() ? random.nextInt() : random.nextInt(200) - 100;
+            final int z = random.nextInt(2 * (1 << 20)) - (1 << 20);
+            if (random.nextInt(4) == 0) {
+                assert Objects.equals(grid.remove(Point.of(x, y)), expected.remove(Point.of(x, y)));
+                assert Objects.equals(cube.remove(Point.of(x, x, z)), expectedCube.remove(Point.of(x, x, z)));
+            }
+            else {
+                assert Objects.equals(grid.put(x, y, i), expected.put(Point.of(x, y), i));
+                assert Objects.equals(cube.put(x, x, z, i), expectedCube.put(Point.of(x, x, z), i));
+            }
+        }
+
+        assert grid.size() == expected.size();
+        assert grid.equals(expected);
+        expected.forEach((point, node) -> {
+            assert Objects.equals(grid.get(point.x(), point.y()), node);
+        });
+        assert cube.equals(expectedCube);
+        expectedCube.forEach((point, node) -> {
+            assert Objects.equals(cube.get(point.x(), point.y(), point.z()), node);
+        });
+
+        assert !cube.containsKey(Integer.MAX_VALUE, 0, 0);
+        assert Objects.isNull(cube.get(Point.of(0, Integer.MIN_VALUE, 0)));
+
+        final Map.Entry<TwoDimIntPoint, Integer> removed = grid.entrySet().iterator().next();
+        grid.remove(removed.getKey());
+        expected.remove(removed.getKey());
+        assert throwsIllegalState(() -> removed.setValue(-1));
+        assert !grid.containsKey(removed.getKey());
+
+        grid.keySet().removeIf(point -> point.x() < 0);
+        assert grid.keySet().stream().allMatch(point -> point.x() >= 0);
+        assert grid.size() == expected.keySet().stream().filter(point -> point.x() >= 0).count();
+    }
+
+    @Test
+    void testRegionIndex() {
+        final TwoDimIntGrid<Character> grid = CharGrid.of(CHAR_GRID_TEST).toGrid();
+        final RegionIndex<Set<TwoDimIntPoint>> digits = RegionIndex.of(grid, Character::isDigit);
+        final int[] adjacent = new int[RegionIndex.MAX_ADJACENT];
+
+        assert digits.regions().size() == 4;
+        assert digits.regionAt(Point.of(1, 0)).orElseThrow().size() == 3;
+        assert digits.regionId(0, 0) == digits.regionId(2, 0);
+        assert !digits.isCovered(Point.of(3, 1));
+        assert digits.regionId(3, 1) == RegionIndex.NO_REGION;
+        assert digits.adjacentRegions(3, 1, adjacent) == 2;
+        assert digits.cardinalRegions(3, 1, adjacent) == 1;
+        assert digits.region(adjacent[0]).contains(Point.of(3, 2));
+        assert digits.adjacentRegions(9, 0, adjacent) == 0;
+        assert digits.adjacentRegions(-5, 100, adjacent) == 0;
+
+        final RegionIndex<String> labelled = RegionIndex.of(
+                List.of("a", "b"),
+                label -> label.equals("a") ? Set.of(Point.of(0, 0)) : Set.of(Point.of(2, 2), Point.of(3, 2)));
+        assert labelled.adjacentRegions(1, 1, adjacent) == 2;
+        assert Set.of(labelled.region(adjacent[0]), labelled.region(adjacent[1])).equals(Set.of("a", "b"));
+        assert labelled.regionAt(Point.of(3, 2)).orElseThrow().equals("b");
+        assert labelled.regionId(3, 2) == 1;
+
+        boolean overlapped = false;
+        try {
+            RegionIndex.of(List.of("a", "b"), label -> Set.of(Point.of(0, 0)));
+        }
+        catch (final IllegalArgumentException e) {
+            overlapped = true;
+        }
+        assert overlapped;
+    }
+
+    @Test
+    void testComponentLabeller() {
+        final CharGrid chars = CharGrid.of(CHAR_GRID_TEST);
+        final ComponentLabeller.Components runs =
+                ComponentLabeller.label(chars, CharGrid.Cell.DIGIT, ComponentLabeller.Connectivity.HORIZONTAL);
+        assert runs.count() == 4;
+        assert runs.labelAt(0, 0) == 0;
+        assert runs.labelAt(7, 0) == 1;
+        assert runs.labelAt(3, 2) == 2;
+        assert runs.labelAt(3, 1) == -1;
+        assert runs.pointSets().get(3).equals(Set.of(Point.of(6, 2), Point.of(7, 2), Point.of(8, 2)));
+
+        // Cross-check against a flood fill on a noisy grid tall enough to span several bands
+        final Random random = new Random(2023);
+        final TwoDimIntGrid<Boolean> noise = TwoDimIntGrid.dense();
+        for (int y = 0; y < 300; y++) {
+            for (int x = 0; x < 80; x++) {
+                noise.put(x, y, random.nextInt(5) < 3);
+            }
+        }
+
+        final ComponentLabeller.Components cardinal =
+                ComponentLabeller.label(noise, Boolean::booleanValue, ComponentLabeller.Connectivity.CARDINAL);
+        // cross-check against a plain flood fill out from every unclaimed cell
+        final Set<Set<TwoDimIntPoint>> flooded = new HashSet<>();
+        final Set<TwoDimIntPoint> claimed = new HashSet<>();
+        noise.forEach((point, node) -> {
+            if (node && claimed.add(point)) {
+                final Set<TwoDimIntPoint> component = new HashSet<>(Set.of(point));
+                final Deque<TwoDimIntPoint> frontier = new ArrayDeque<>(component);
+                while (!frontier.isEmpty()) {
+                    noise.forEachCardinalNeighbour(frontier.poll(), (neighbour, next) -> {
+                        if (Boolean.TRUE.equals(next) && claimed.add(neighbour)) {
+                            component.add(neighbour);
+                            frontier.add(neighbour);
+                        }
+                    });
+                }
+                flooded.add(component);
+            }
+        });
+        assert cardinal.count() == flooded.size();
+        assert new HashSet<>(cardinal.pointSets()).equals(flooded);
+        assert RegionIndex.of(noise, Boolean::booleanValue).regions().equals(cardinal.pointSets());
+
+        final ComponentLabeller.Components orthogonal =
+                ComponentLabeller.label(noise, Boolean::booleanValue, ComponentLabeller.Connectivity.ORTHOGONAL);
+        assert orthogonal.count() < cardinal.count();
+        noise.forEach((point, node) -> {
+            if (node) {
+                noise.forEachOrthogonalNeighbour(point.x(), point.y(), (x, y) -> {
+                    assert !noise.get(x, y) || orthogonal.labelAt(x, y) == orthogonal.labelAt(point.x(), point.y());
+                });
+            }
+        });
+    }
+
+    private static boolean throwsIllegalState(final Runnable runnable) {
+        try {
+            runnable.run();
+            return false;
+        }
+        catch (final IllegalStateException e) {
+            return true;
+        }
+    }
 }
@@ -0,0 +1,584 @@
+package util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class UtilTest {
+
+    @Test
+    void testMappedInput() throws IOException {
+        final Random random = new Random(7);
+        final String[] pieces = {"a", "b", " ", "7", "\n", "\r\n"};
+        for (int trial = 0; trial < 200; trial++) {
+            final StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(60); i > 0; i--) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            final String content = text.toString();
+            final Path path = Files.createTempFile("mapped", ".txt");
+            try {
+                Files.writeString(path, content, StandardCharsets.ISO_8859_1);
+                // segments of 8 bytes put many segment boundaries inside lines, words and CRLFs
+                for (final MappedInput input : List.of(MappedInput.of(path), MappedInput.of(path, 3))) {
+                    checkMappedInput(input, content);
+                }
+            }
+            finally {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void testTokenizer() {
+        final Tokenizer tokenizer = Tokenizer.of("Game 12: 3 blue,\t-4 red;\n");
+        assert tokenizer.expect("Game").nextInt() == 12;
+        assert tokenizer.peek() == ':' && tokenizer.position() == 7;
+        tokenizer.expect(':');
+        assert tokenizer.nextLong() == 3;
+        assert tokenizer.nextToken().toString().equals("blue,");
+        assert !tokenizer.skipIf(',') && tokenizer.nextInt() == -4;
+        assert tokenizer.nextToken().toString().equals("red;");
+        assert !tokenizer.hasNext() && tokenizer.position() == tokenizer.skipWhitespace().position();
+        assert fails(IllegalStateException.class, tokenizer::peek);
+        assert fails(IllegalStateException.class, tokenizer::nextToken);
+        assert fails(IllegalStateException.class, tokenizer::nextInt);
+
+        // a failed expect or number leaves the position where it was
+        tokenizer.reset("abc 12x");
+        assert tokenizer.position() == 0 && tokenizer.hasNext();
+        assert fails(IllegalStateException.class, () -> tokenizer.expect("abd"));
+        assert fails(IllegalStateException.class, () -> tokenizer.expect("abc 12x3"));
+        assert fails(IllegalStateException.class, () -> tokenizer.expect('b'));
+        assert fails(IllegalStateException.class, tokenizer::nextLong);
+        assert tokenizer.nextChar() == 'a' && tokenizer.skipIf('b') && tokenizer.skipIf('c');
+        assert tokenizer.nextInt() == 12 && tokenizer.nextChar() == 'x' && !tokenizer.hasNext();
+
+        // the extremes of each type, and one past them
+        tokenizer.reset("%d %d %d -".formatted(Long.MIN_VALUE, Long.MAX_VALUE, 0));
+        assert tokenizer.nextLong() == Long.MIN_VALUE;
+        assert tokenizer.nextLong() == Long.MAX_VALUE;
+        assert tokenizer.nextLong() == 0;
+        assert fails(IllegalStateException.class, tokenizer::nextLong);
+        tokenizer.reset("9223372036854775808 -9223372036854775809 99999999999999999999");
+        for (int i = 0; i < 3; i++) {
+            final int position = tokenizer.skipWhitespace().position();
+            assert fails(IllegalStateException.class, tokenizer::nextLong);
+            assert tokenizer.position() == position;
+            tokenizer.nextToken();
+        }
+        tokenizer.reset("%d %d %d %d".formatted(Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE - 1L, Integer.MAX_VALUE + 1L));
+        assert tokenizer.nextInt() == Integer.MIN_VALUE;
+        assert tokenizer.nextInt() == Integer.MAX_VALUE;
+        assert fails(IllegalStateException.class, tokenizer::nextInt);
+        assert tokenizer.nextLong() == Integer.MIN_VALUE - 1L;
+        assert fails(IllegalStateException.class, tokenizer::nextInt);
+        assert tokenizer.nextLong() == Integer.MAX_VALUE + 1L;
+
+        final Random random = new Random(8);
+        for (int trial = 0; trial < 1000; trial++) {
+            final long value = random.nextLong() >> random.nextInt(64);
+            assert tokenizer.reset(" " + value + "\n").nextLong() == value && !tokenizer.hasNext();
+        }
+    }
+
+    @Test
+    void testMultiPatternMatcher() throws IOException {
+        // overlapping patterns, where one's end is another's start or one pattern lies within another
+        final MultiPatternMatcher words = MultiPatternMatcher.of(Map.of("one", 1, "two", 2, "eight", 8, "2", 2));
+        assert words.first("eightwo") == 8 && words.last("eightwo") == 2;
+        assert words.first("xtwonex") == 2 && words.last("xtwonex") == 1;
+        assert words.first("eighthree") == 8 && words.last("eighthree") == 8;
+        assert words.first("thre\u00e9e") == MultiPatternMatcher.NO_MATCH;
+        final MultiPatternMatcher nested = MultiPatternMatcher.of(Map.of("b", 1, "ca", 2, "baab", 3));
+        assert nested.first("baab") == 3 && nested.last("baab") == 1;
+        assert nested.first("cabaab") == 2 && nested.last("cabaa") == 1;
+        assert nested.first("cabaab", 2, 5) == 1 && nested.last("cabaab", 0, 2) == 2;
+        assert nested.first("") == MultiPatternMatcher.NO_MATCH && nested.last("aaa") == MultiPatternMatcher.NO_MATCH;
+
+        assert fails(IllegalArgumentException.class, () -> MultiPatternMatcher.of(Map.of()));
+        assert fails(IllegalArgumentException.class, () -> MultiPatternMatcher.of(Map.of("", 1)));
+        assert fails(IllegalArgumentException.class, () -> MultiPatternMatcher.of(Map.of("\u00e9", 1)));
+        assert fails(IllegalArgumentException.class, () -> MultiPatternMatcher.of(Map.of("a", -1)));
+
+        // text and mapped scans against trying every pattern at every start, on random patterns over a small alphabet
+        final Random random = new Random(22);
+        final String alphabet = "abc\u00e9";
+        for (int trial = 0; trial < 100; trial++) {
+            final Map<String, Integer> patterns = new HashMap<>();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                patterns.put(randomText(random, "abc", 1 + random.nextInt(4)), random.nextInt(10));
+            }
+            final MultiPatternMatcher matcher = MultiPatternMatcher.of(patterns);
+            final String text = randomText(random, alphabet, random.nextInt(40));
+            final Path path = Files.createTempFile("matcher", ".txt");
+            try {
+                Files.writeString(path, text, StandardCharsets.ISO_8859_1);
+                final MappedInput input = MappedInput.of(path, 3);
+                for (int check = 0; check < 20; check++) {
+                    final int from = random.nextInt(text.length() + 1);
+                    final int to = from + random.nextInt(text.length() - from + 1);
+                    final int first = naiveMatch(patterns, text, from, to, true);
+                    final int last = naiveMatch(patterns, text, from, to, false);
+                    assert matcher.first(text, from, to) == first && matcher.first(input, from, to) == first;
+                    assert matcher.last(text, from, to) == last && matcher.last(input, from, to) == last;
+                }
+            }
+            finally {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void testByteWords() {
+        // every byte value in every position, then random words, against testing a byte at a time
+        final Random random = new Random(23);
+        final long[] words = new long[256 * 8 + 1000];
+        for (int i = 0; i < 256 * 8; i++) {
+            words[i] = random.nextLong() & ~(0xFFL << (i % 8 * 8)) | (long) (i / 8) << (i % 8 * 8);
+        }
+        for (int i = 256 * 8; i < words.length; i++) {
+            words[i] = random.nextLong();
+        }
+        final byte[][] ranges = {{'0', '9'}, {0, 0}, {0, 127}, {'a', 'a'}, {127, 127}, {'z', 'a'}};
+        for (final long word : words) {
+            final int value = random.nextInt(256);
+            long equal = 0;
+            for (int i = 0; i < ByteWords.BYTES; i++) {
+                assert ByteWords.byteAt(word, i) == (word >>> (8 * i) & 0xFF);
+                equal |= ByteWords.byteAt(word, i) == value ? 0x80L << (8 * i) : 0;
+            }
+            assert ByteWords.equalTo(word, (byte) value) == equal;
+            final int third = ByteWords.byteAt(word, 3);
+            assert ByteWords.equalTo(word, (byte) third) == byteMask(word, third, third);
+            for (final byte[] range : ranges) {
+                assert ByteWords.inRange(word, range[0], range[1]) == byteMask(word, range[0], range[1]);
+            }
+            if (equal != 0) {
+                assert ByteWords.byteAt(word, ByteWords.firstByte(equal)) == value;
+                assert ByteWords.byteAt(word, ByteWords.lastByte(equal)) == value;
+                assert ByteWords.firstByte(equal) == Long.numberOfTrailingZeros(equal) / 8;
+                assert ByteWords.lastByte(equal) == 7 - Long.numberOfLeadingZeros(equal) / 8;
+            }
+        }
+        assert fails(IllegalArgumentException.class, () -> ByteWords.inRange(0, (byte) 0x80, (byte) 'a'));
+        assert fails(IllegalArgumentException.class, () -> ByteWords.inRange(0, (byte) 'a', (byte) 0xFF));
+    }
+
+    @Test
+    void testLongIntervalMap() {
+        // out of order, with an empty interval and two that touch
+        final LongIntervalMap map = LongIntervalMap.of(
+                new long[]{10, -5, 5, 20},
+                new long[]{20, 0, 10, 20},
+                new long[]{100, 7, -5, 1});
+
+        assert map.size() == 3;
+        assert map.start(0) == -5 && map.start(1) == 5 && map.start(2) == 10;
+        assert map.indexOf(-6) == -1;
+        assert map.indexOf(-5) == 0;
+        assert map.indexOf(0) == -1;
+        assert map.indexOf(9) == 1;
+        assert map.indexOf(10) == 2;
+        assert map.indexOf(20) == -1;
+        assert map.eval(-1) == 6;
+        assert map.eval(7) == 2;
+        assert map.eval(19) == 119;
+        assert map.eval(Long.MAX_VALUE) == Long.MAX_VALUE;
+        assert Arrays.equals(map.evalAll(new long[]{-5, 0, 5, 10, 20}), new long[]{2, 0, 0, 110, 20});
+
+        assert LongIntervalMap.of(new long[0], new long[0], new long[0]).size() == 0;
+        assert LongIntervalMap.identity().eval(42) == 42;
+        assert fails(IllegalArgumentException.class,
+                () -> LongIntervalMap.of(new long[]{0, 5}, new long[]{10, 15}, new long[]{1, 1}));
+        assert fails(IllegalArgumentException.class,
+                () -> LongIntervalMap.of(new long[]{0}, new long[]{10, 15}, new long[]{1}));
+
+        final LongIntervalMap built = new LongIntervalMap.Builder()
+                .add(10, 20, 100)
+                .add(-5, 0, 7)
+                .add(5, 10, -5)
+                .build();
+        assert built.toString().equals(map.toString());
+
+        // against a plain scan of the intervals, with keys either side of zero so the sort sees both signs
+        final Random random = new Random(10);
+        for (int trial = 0; trial < 200; trial++) {
+            final int size = random.nextInt(20);
+            final long[] starts = new long[size];
+            final long[] ends = new long[size];
+            final long[] offsets = new long[size];
+            long next = -1000;
+            for (int i = 0; i < size; i++) {
+                starts[i] = next + random.nextInt(3);
+                ends[i] = starts[i] + random.nextInt(20);
+                offsets[i] = random.nextInt(200) - 100;
+                next = ends[i];
+            }
+            final LongIntervalMap shuffled = LongIntervalMap.of(reversed(starts), reversed(ends), reversed(offsets));
+            for (long value = -1010; value < next + 10; value++) {
+                long expected = value;
+                for (int i = 0; i < size; i++) {
+                    if (starts[i] <= value && value < ends[i]) {
+                        expected = value + offsets[i];
+                    }
+                }
+                assert shuffled.eval(value) == expected;
+            }
+        }
+    }
+
+    @Test
+    void testLongIntervalMapComposition() {
+        final Random random = new Random(12);
+        for (int trial = 0; trial < 300; trial++) {
+            final LongIntervalMap first = randomMap(random);
+            final LongIntervalMap second = randomMap(random);
+            final LongIntervalMap composed = first.andThen(second);
+            for (long value = -150; value < 150; value++) {
+                assert composed.eval(value) == second.eval(first.eval(value));
+            }
+
+            final long from = random.nextInt(200) - 100;
+            final long to = from + 1 + random.nextInt(50);
+            long min = Long.MAX_VALUE;
+            for (long value = from; value < to; value++) {
+                min = Math.min(min, composed.eval(value));
+            }
+            assert composed.min(from, to) == min;
+
+            // pieces run on from one another across the whole range, each with the offset of every value in it
+            final long[] next = {from};
+            composed.forEachPiece(from, to, (start, end, offset) -> {
+                assert start == next[0] && start < end;
+                for (long value = start; value < end; value++) {
+                    assert composed.eval(value) == value + offset;
+                }
+                next[0] = end;
+            });
+            assert next[0] == to;
+        }
+
+        assert LongIntervalMap.identity().andThen(LongIntervalMap.identity()).size() == 0;
+        assert fails(IllegalArgumentException.class, () -> LongIntervalMap.identity().min(5, 5));
+    }
+
+    @Test
+    void testLongIntervalSet() {
+        // empty and adjacent intervals are normalised away
+        final LongIntervalSet set = LongIntervalSet.of(new long[]{5, 0, 20, 12}, new long[]{10, 5, 20, 15});
+        assert set.size() == 2;
+        assert set.equals(LongIntervalSet.of(0, 10).union(LongIntervalSet.of(12, 15)));
+        assert set.count() == 13;
+        assert set.min() == 0;
+        assert set.contains(0) && set.contains(9) && !set.contains(10) && set.contains(14) && !set.contains(-1);
+        assert LongIntervalSet.of(3, 3).isEmpty();
+        assert LongIntervalSet.of(0, 5).union(LongIntervalSet.of(5, 8)).equals(LongIntervalSet.of(0, 8));
+        assert LongIntervalSet.of(0, 5).intersect(LongIntervalSet.of(5, 8)).isEmpty();
+        assert LongIntervalSet.of(0, 5).subtract(LongIntervalSet.of(0, 5)).isEmpty();
+        assert set.shift(-3).equals(LongIntervalSet.of(new long[]{-3, 9}, new long[]{7, 12}));
+        assert fails(IllegalStateException.class, () -> LongIntervalSet.empty().min());
+        assert fails(ArithmeticException.class, () -> LongIntervalSet.of(0, Long.MAX_VALUE).shift(1));
+        assert fails(ArithmeticException.class, () -> LongIntervalSet.of(Long.MAX_VALUE - 1, Long.MAX_VALUE)
+                .mapThrough(LongIntervalMap.of(new long[]{0}, new long[]{Long.MAX_VALUE}, new long[]{1})));
+
+        // against membership of every value in a small domain
+        final Random random = new Random(13);
+        for (int trial = 0; trial < 500; trial++) {
+            final LongIntervalSet a = randomSet(random);
+            final LongIntervalSet b = randomSet(random);
+            final LongIntervalMap map = randomMap(random);
+            final LongIntervalSet union = a.union(b);
+            final LongIntervalSet intersection = a.intersect(b);
+            final LongIntervalSet difference = a.subtract(b);
+            final LongIntervalSet image = a.mapThrough(map);
+            long count = 0;
+            // values within [-300, 300) that some value of a maps to
+            final boolean[] mapped = new boolean[600];
+            for (long value = -200; value < 200; value++) {
+                assert union.contains(value) == (a.contains(value) || b.contains(value));
+                assert intersection.contains(value) == (a.contains(value) && b.contains(value));
+                assert difference.contains(value) == (a.contains(value) && !b.contains(value));
+                if (a.contains(value)) {
+                    count++;
+                    assert image.contains(map.eval(value));
+                    mapped[(int) map.eval(value) + 300] = true;
+                }
+            }
+            assert a.count() == count;
+            for (int value = -300; value < 300; value++) {
+                assert image.contains(value) == mapped[value + 300];
+            }
+            for (int i = 1; i < union.size(); i++) {
+                // normalised, so no two intervals touch
+                assert union.end(i - 1) < union.start(i);
+            }
+        }
+    }
+
+    @Test
+    void testLongMinScanner() {
+        // a scrambled function, so the least result is somewhere in the middle of a chunk
+        final LongMinScanner.BatchFunction scramble = values -> {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Math.floorMod(values[i] * 7919, 10007);
+            }
+        };
+        final Random random = new Random(14);
+        for (int trial = 0; trial < 50; trial++) {
+            final LongIntervalSet domain = randomSet(random).union(LongIntervalSet.of(500, 500 + random.nextInt(3000)));
+            long min = Long.MAX_VALUE;
+            long arg = 0;
+            for (int i = 0; i < domain.size(); i++) {
+                for (long value = domain.start(i); value < domain.end(i); value++) {
+                    final long result = Math.floorMod(value * 7919, 10007);
+                    if (result < min) {
+                        min = result;
+                        arg = value;
+                    }
+                }
+            }
+            final LongMinScanner scanner = LongMinScanner.of(domain, scramble, 1 + random.nextInt(100));
+            assert scanner.scan().equals(new LongMinScanner.Result(arg, min));
+            // scanners can be scanned again
+            assert scanner.scan(ForkJoinPool.commonPool(), Duration.ofMillis(1), (scanned, total) -> {
+                assert scanned <= total;
+            }).equals(new LongMinScanner.Result(arg, min));
+        }
+
+        // ties go to the first value
+        assert LongMinScanner.of(LongIntervalSet.of(-50, 50), values -> Arrays.fill(values, 3), 7).scan()
+                .equals(new LongMinScanner.Result(-50, 3));
+
+        // cancelled from within the first scan, which leaves the next to run to the end
+        final LongMinScanner[] cancelling = new LongMinScanner[1];
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        cancelling[0] = LongMinScanner.of(LongIntervalSet.of(0, 100_000), values -> {
+            if (cancelled.compareAndSet(false, true)) {
+                cancelling[0].cancel();
+            }
+            scramble.evalAll(values);
+        }, 100);
+        assert fails(CancellationException.class, () -> cancelling[0].scan());
+        assert cancelling[0].scanned() == 0;
+        assert cancelling[0].scan().min() == 0;
+
+        assert fails(IllegalStateException.class, () -> LongMinScanner.of(LongIntervalSet.empty(), scramble).scan());
+        assert fails(IllegalArgumentException.class, () -> LongMinScanner.of(LongIntervalSet.of(0, 1), scramble, 0));
+    }
+
+    @Test
+    void testRadixSortIntKeys() {
+        final Random random = new Random(17);
+        for (final int keyBits : new int[] {0, 1, 5, 12, 13, 23, 31}) {
+            for (int trial = 0; trial < 20; trial++) {
+                final int[] keys = new int[random.nextInt(1000)];
+                final long[] values = new long[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    // few distinct keys in some trials, so that stability is tested
+                    keys[i] = (int) (random.nextLong(trial % 2 == 0 ? 1L << keyBits : Math.min(4, 1L << keyBits)));
+                    values[i] = (long) keys[i] << 32 | i;
+                }
+                final int[] sorted = keys.clone();
+                Arrays.sort(sorted);
+                RadixSort.sortByKey(keys, values, keyBits);
+                assert Arrays.equals(keys, sorted);
+                for (int i = 0; i < keys.length; i++) {
+                    // values moved with their keys, and equal keys kept their index order
+                    assert values[i] >>> 32 == keys[i];
+                    assert i == 0 || values[i - 1] < values[i];
+                }
+            }
+        }
+
+        assert fails(IllegalArgumentException.class, () -> RadixSort.sortByKey(new int[2], new long[3], 4));
+        assert fails(IllegalArgumentException.class, () -> RadixSort.sortByKey(new int[] {16}, new long[1], 4));
+        assert fails(IllegalArgumentException.class, () -> RadixSort.sortByKey(new int[] {-1}, new long[1], 31));
+        assert fails(IllegalArgumentException.class, () -> RadixSort.sortByKey(new int[0], new long[0], 32));
+        assert fails(IllegalArgumentException.class, () -> RadixSort.sortByKey(new long[2], new int[3]));
+        final int[] untouched = {3, 1, 2};
+        assert fails(IllegalArgumentException.class, () -> RadixSort.sortByKey(untouched, new long[3], 1));
+        assert Arrays.equals(untouched, new int[] {3, 1, 2});
+    }
+
+    @Test
+    void testRadixSortLongKeys() {
+        final Random random = new Random(11);
+        for (int trial = 0; trial < 100; trial++) {
+            final long[] keys = new long[random.nextInt(1000)];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = switch (trial % 3) {
+                    case 0 -> random.nextLong();
+                    case 1 -> random.nextInt(100) - 50;
+                    default -> random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+                };
+            }
+            final int[] order = RadixSort.sortedOrder(keys);
+            final long[] sorted = keys.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < order.length; i++) {
+                assert keys[order[i]] == sorted[i];
+                // stable, so equal keys keep their index order
+                assert i == 0 || keys[order[i - 1]] != keys[order[i]] || order[i - 1] < order[i];
+            }
+        }
+    }
+
+    private static void checkMappedInput(final MappedInput input, final String content) {
+        assert input.size() == content.length();
+        for (int offset = 0; offset < content.length(); offset++) {
+            assert input.byteAt(offset) == content.charAt(offset);
+            assert input.nextLineBreak(offset) == (content.indexOf('\n', offset) < 0
+                    ? content.length()
+                    : content.indexOf('\n', offset));
+
+            long word = 0;
+            for (int i = 0; i < 8 && offset + i < content.length(); i++) {
+                word |= (long) content.charAt(offset + i) << (8 * i);
+            }
+            assert input.longAt(offset) == word;
+        }
+
+        // lines without their terminators, and records of the lines between blank lines
+        final List<String> lines = new ArrayList<>();
+        final List<String> records = new ArrayList<>();
+        int recordStart = -1;
+        int recordEnd = -1;
+        for (int start = 0; start < content.length(); ) {
+            final int lineBreak = content.indexOf('\n', start) < 0 ? content.length() : content.indexOf('\n', start);
+            final int end = lineBreak > start && content.charAt(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak;
+            lines.add(content.substring(start, end));
+            if (end == start) {
+                if (recordStart >= 0) {
+                    records.add(content.substring(recordStart, recordEnd));
+                }
+                recordStart = -1;
+            }
+            else {
+                recordStart = recordStart < 0 ? start : recordStart;
+                recordEnd = end;
+            }
+            start = lineBreak + 1;
+        }
+        if (recordStart >= 0) {
+            records.add(content.substring(recordStart, recordEnd));
+        }
+
+        assert input.lines().map(CharSequence::toString).toList().equals(lines);
+        assert input.records().map(CharSequence::toString).toList().equals(records);
+        final List<String> visited = new ArrayList<>();
+        input.forEachLine((start, end) -> visited.add(input.view(start, end).toString()));
+        assert visited.equals(lines);
+        visited.clear();
+        input.forEachRecord((start, end) -> visited.add(input.view(start, end).toString()));
+        assert visited.equals(records);
+
+        final CharSequence all = input.view(0, input.size());
+        assert all.toString().equals(content);
+        if (content.length() > 2) {
+            final int end = content.length() - 1;
+            assert all.subSequence(1, end).toString().equals(content.substring(1, end));
+        }
+        assert fails(IndexOutOfBoundsException.class, () -> all.charAt(content.length()));
+        assert fails(IndexOutOfBoundsException.class, () -> input.view(0, input.size() + 1));
+    }
+
+    // Mask with the high bit of every byte of word within [low, high], testing a byte at a time
+    private static long byteMask(final long word, final int low, final int high) {
+        long mask = 0;
+        for (int i = 0; i < ByteWords.BYTES; i++) {
+            final int b = ByteWords.byteAt(word, i);
+            mask |= b >= low && b <= high ? 0x80L << (8 * i) : 0;
+        }
+        return mask;
+    }
+
+    private static String randomText(final Random random, final String alphabet, final int length) {
+        final StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    // Value of the longest pattern at the least or greatest start in [from, to) of text that has a match
+    private static int naiveMatch(final Map<String, Integer> patterns, final String text, final int from, final int to,
+                                  final boolean first) {
+        for (int i = 0; i < to - from; i++) {
+            final int start = first ? from + i : to - 1 - i;
+            int bestLength = 0;
+            int bestValue = MultiPatternMatcher.NO_MATCH;
+            for (final Map.Entry<String, Integer> entry : patterns.entrySet()) {
+                final String pattern = entry.getKey();
+                if (pattern.length() > bestLength && start + pattern.length() <= to
+                        && text.startsWith(pattern, start)) {
+                    bestLength = pattern.length();
+                    bestValue = entry.getValue();
+                }
+            }
+            if (bestLength > 0) {
+                return bestValue;
+            }
+        }
+        return MultiPatternMatcher.NO_MATCH;
+    }
+
+    // Up to eight intervals within [-100, 100), some empty and some touching
+    private static LongIntervalMap randomMap(final Random random) {
+        final LongIntervalMap.Builder builder = new LongIntervalMap.Builder();
+        long next = -100;
+        for (int i = random.nextInt(9); i > 0; i--) {
+            final long start = next + random.nextInt(3);
+            final long end = start + random.nextInt(25);
+            builder.add(start, end, random.nextInt(60) - 30);
+            next = end;
+        }
+        return builder.build();
+    }
+
+    // Up to eight intervals within [-100, 100), in any order and possibly overlapping, empty or touching
+    private static LongIntervalSet randomSet(final Random random) {
+        final int size = random.nextInt(9);
+        final long[] starts = new long[size];
+        final long[] ends = new long[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = random.nextInt(180) - 100;
+            ends[i] = starts[i] + random.nextInt(20);
+        }
+        return LongIntervalSet.of(starts, ends);
+    }
+
+    private static long[] reversed(final long[] values) {
+        final long[] reversed = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            reversed[i] = values[values.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    private static boolean fails(final Class<? extends RuntimeException> type, final Runnable runnable) {
+        try {
+            runnable.run();
+            return false;
+        }
+        catch (final RuntimeException e) {
+            return type.isInstance(e);
+        }
+    }
+}